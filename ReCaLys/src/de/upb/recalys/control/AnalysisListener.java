@@ -0,0 +1,84 @@
+package de.upb.recalys.control;
+
+import de.upb.recalys.model.AnalysisProgress;
+import de.upb.recalys.model.RCSGraph;
+
+/**
+ * A listener that is informed by {@link ReCaLys} about the loaded graph, the
+ * imported results and the analysis. It decouples the analysis from the view:
+ * the {@link de.upb.recalys.view.GUI} shows the analysis, the
+ * {@link BatchAnalysis} runs without any view. The methods are called on the
+ * event dispatch thread, if ReCaLys runs with a GUI, and on the calling thread
+ * otherwise.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+public interface AnalysisListener {
+
+	/**
+	 * Is called when the graph of a new IA was loaded. The results of the
+	 * previous experiment were dropped.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 */
+	void graphLoaded(RCSGraph graph);
+
+	/**
+	 * Is called when the experiment was replaced by imported results, right
+	 * before they are analysed.
+	 */
+	void experimentReplaced();
+
+	/**
+	 * Is called when an import of results has ended.
+	 *
+	 * @param imported
+	 *            true, if the results were imported, false if the import was
+	 *            cancelled or failed
+	 */
+	void resultsImported(boolean imported);
+
+	/**
+	 * Is called when the analysis of the experiment has changed.
+	 */
+	void analysisUpdated();
+
+	/**
+	 * Is called when an analysis was started in the background. The analysis
+	 * can be cancelled through the given progress.
+	 *
+	 * @param progress
+	 *            the progress of the analysis
+	 */
+	void analysisStarted(AnalysisProgress progress);
+
+	/**
+	 * Is called when the progress of the analysis that runs in the background
+	 * has changed.
+	 *
+	 * @param progress
+	 *            the progress of the analysis
+	 */
+	void analysisProgressChanged(AnalysisProgress progress);
+
+	/**
+	 * Is called when the analysis that runs in the background has ended. If it
+	 * was completed, {@link #analysisUpdated()} was called before.
+	 *
+	 * @param completed
+	 *            true, if the analysis was completed, false if it was cancelled
+	 *            or failed
+	 */
+	void analysisEnded(boolean completed);
+
+	/**
+	 * Is called when the log of the detection of systematic searching has
+	 * changed.
+	 *
+	 * @param log
+	 *            the log
+	 */
+	void systematicSearchLogChanged(String log);
+}
@@ -0,0 +1,323 @@
+package de.upb.recalys.control;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import de.upb.recalys.helper.FileChecker;
+import de.upb.recalys.model.AnalysisProgress;
+import de.upb.recalys.model.RCSGraph;
+import de.upb.recalys.model.RCSNode;
+import de.upb.recalys.model.RCSTask;
+
+/**
+ * This class runs the analysis of an experiment without a GUI, e.g. on a build
+ * server. It loads an IA, imports the results and writes the tasks, the bad
+ * list, the hot list, a summary with the coverage and the log of the detection
+ * of systematic searching to an output directory, either as CSV-files or as one
+ * JSON-file. No classes of AWT or Swing are loaded.
+ *
+ * <pre>
+ * java -cp ... de.upb.recalys.control.BatchAnalysis [options] &lt;IA file&gt; &lt;results file&gt;...
+ *
+ * -o &lt;directory&gt;  the output directory (default: the working directory)
+ * -f csv|json      the output format (default: csv)
+ * -p &lt;rate&gt;       the maximal problem rate of the detection of systematic searching
+ * -r &lt;rate&gt;       the maximal return rate of the detection of systematic searching
+ * -t &lt;ms&gt;         the time a user needs to think before choosing a link
+ * </pre>
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+public class BatchAnalysis implements AnalysisListener {
+
+	private static final String USAGE = "Usage: BatchAnalysis [-o <directory>] [-f csv|json] [-p <max problem rate>]"
+			+ " [-r <max return rate>] [-t <time to think in ms>] <IA file> <results file>...";
+
+	private File outputDirectory = new File(".");
+	private boolean json = false;
+	private Double maxProblemRate;
+	private Double maxReturnRate;
+	private Integer timeToThink;
+	private File iaFile;
+	private ArrayList<File> resultsFiles = new ArrayList<File>();
+
+	private String systematicSearchLog = "";
+
+	/**
+	 * Main function that runs the analysis
+	 *
+	 * @param args
+	 *            the command line arguments
+	 */
+	public static void main(String[] args) {
+		BatchAnalysis batch = new BatchAnalysis();
+		try {
+			batch.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		try {
+			batch.run();
+		} catch (IOException | SAXException | ParserConfigurationException e) {
+			System.err.println("The analysis failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Reads the command line arguments.
+	 *
+	 * @param args
+	 *            the command line arguments
+	 * @throws IllegalArgumentException
+	 *             if the arguments are invalid
+	 */
+	private void parseArguments(String[] args) {
+		int i = 0;
+		try {
+			for (; i < args.length && args[i].startsWith("-"); i += 2) {
+				if (i + 1 == args.length)
+					throw new IllegalArgumentException("Missing value of " + args[i]);
+				String value = args[i + 1];
+				if (args[i].equals("-o"))
+					outputDirectory = new File(value);
+				else if (args[i].equals("-f") && (value.equals("csv") || value.equals("json")))
+					json = value.equals("json");
+				else if (args[i].equals("-p"))
+					maxProblemRate = Double.valueOf(value);
+				else if (args[i].equals("-r"))
+					maxReturnRate = Double.valueOf(value);
+				else if (args[i].equals("-t"))
+					timeToThink = Integer.valueOf(value);
+				else
+					throw new IllegalArgumentException("Invalid option " + args[i] + " " + value);
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number " + args[i + 1]);
+		}
+		if (args.length - i < 2)
+			throw new IllegalArgumentException("An IA file and at least one results file are needed");
+		iaFile = new File(args[i++]);
+		for (; i < args.length; i++) {
+			resultsFiles.add(new File(args[i]));
+		}
+
+		if (!FileChecker.checkRoot(iaFile, "recapo"))
+			throw new IllegalArgumentException(iaFile + " is no IA that was created in ReCaPo");
+		for (File file : resultsFiles) {
+			if (!FileChecker.checkRoot(file, "cardsort"))
+				throw new IllegalArgumentException(file + " contains no results that were created in ReCaPo");
+		}
+	}
+
+	/**
+	 * Runs the analysis and writes its results.
+	 *
+	 * @throws IOException
+	 *             if a file cannot be read or written
+	 * @throws SAXException
+	 *             if a results file cannot be parsed
+	 * @throws ParserConfigurationException
+	 *             if there is no SAX parser
+	 */
+	private void run() throws IOException, SAXException, ParserConfigurationException {
+		ReCaLys recalys = new ReCaLys(this);
+		if (maxProblemRate != null)
+			recalys.setMaxProblemRate(maxProblemRate);
+		if (maxReturnRate != null)
+			recalys.setMaxReturnRate(maxReturnRate);
+		if (timeToThink != null)
+			recalys.setTimeToThink(timeToThink);
+
+		recalys.buildGraphXML(iaFile);
+		recalys.importResultsAndWait(resultsFiles.toArray(new File[resultsFiles.size()]),
+				new ImportProgress(0, null));
+
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+			throw new IOException("Could not create " + outputDirectory);
+		if (json) {
+			writeJSON(recalys);
+		} else {
+			writeCSV(recalys);
+		}
+		try (PrintWriter out = writer("ssd-log.txt")) {
+			out.print(systematicSearchLog);
+		}
+	}
+
+	private PrintWriter writer(String name) throws IOException {
+		return new PrintWriter(
+				new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, name)), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes the analysis as tasks.csv, badlist.csv, hotlist.csv and summary.csv.
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeCSV(ReCaLys recalys) throws IOException {
+		try (PrintWriter out = writer("summary.csv")) {
+			out.println("users,coverage,total_solution_rate,nodes_to_inspect,max_problem_rate,max_return_rate,"
+					+ "time_to_think");
+			out.println(recalys.getUserCount() + "," + recalys.getCoverage() + "," + recalys.getTotalSolutionRate()
+					+ "," + recalys.getNodesToInspect() + "," + recalys.getMaxProblemRate() + ","
+					+ recalys.getMaxReturnRate() + "," + recalys.getTimeToThink());
+		}
+		try (PrintWriter out = writer("tasks.csv")) {
+			out.println("id,task,target_id,target,paths,invalid_paths,solution_rate,average_time_taken,"
+					+ "average_path_length");
+			for (RCSTask task : recalys.getExperiment()) {
+				out.println(task.getID() + "," + csv(task.getAlternativeTargetName()) + "," + task.getTarget().getID()
+						+ "," + csv(task.getTarget().getLabel()) + "," + task.getPaths().size() + ","
+						+ task.getNumberOfInvalidPaths() + "," + task.getSolutionRate() + ","
+						+ task.getAverageTimeTaken() + "," + task.getAveragePathLength());
+			}
+		}
+		try (PrintWriter out = writer("badlist.csv")) {
+			out.println("rank,id,page,malus,unweighted_malus,latency_weight,coverage");
+			int rank = 1;
+			for (RCSNode node : recalys.getBadList()) {
+				out.println(rank++ + "," + node.getID() + "," + csv(node.getLabel()) + "," + node.getMalus() + ","
+						+ node.getDistRating() + "," + node.getLatencyWeight() + "," + node.getCoverage());
+			}
+		}
+		try (PrintWriter out = writer("hotlist.csv")) {
+			out.println("rank,id,page,coverage_after");
+			LinkedList<RCSNode> pages = recalys.getHotList()[0];
+			LinkedList<Double> coverages = recalys.getHotList()[1];
+			for (int rank = 0; rank < pages.size(); rank++) {
+				RCSNode node = pages.get(rank);
+				out.println(rank + 1 + "," + node.getID() + "," + csv(node.getLabel()) + "," + coverages.get(rank));
+			}
+		}
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0)
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Writes the analysis as analysis.json.
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeJSON(ReCaLys recalys) throws IOException {
+		try (PrintWriter out = writer("analysis.json")) {
+			out.println("{");
+			out.println("  \"users\": " + recalys.getUserCount() + ",");
+			out.println("  \"coverage\": " + recalys.getCoverage() + ",");
+			out.println("  \"totalSolutionRate\": " + recalys.getTotalSolutionRate() + ",");
+			out.println("  \"nodesToInspect\": " + recalys.getNodesToInspect() + ",");
+			out.println("  \"maxProblemRate\": " + recalys.getMaxProblemRate() + ",");
+			out.println("  \"maxReturnRate\": " + recalys.getMaxReturnRate() + ",");
+			out.println("  \"timeToThink\": " + recalys.getTimeToThink() + ",");
+
+			out.println("  \"tasks\": [");
+			ArrayList<RCSTask> experiment = recalys.getExperiment();
+			for (int i = 0; i < experiment.size(); i++) {
+				RCSTask task = experiment.get(i);
+				out.println("    {\"id\": " + task.getID() + ", \"task\": " + json(task.getAlternativeTargetName())
+						+ ", \"targetId\": " + task.getTarget().getID() + ", \"target\": "
+						+ json(task.getTarget().getLabel()) + ", \"paths\": " + task.getPaths().size()
+						+ ", \"invalidPaths\": " + task.getNumberOfInvalidPaths() + ", \"solutionRate\": "
+						+ task.getSolutionRate() + ", \"averageTimeTaken\": " + task.getAverageTimeTaken()
+						+ ", \"averagePathLength\": " + task.getAveragePathLength() + "}"
+						+ (i < experiment.size() - 1 ? "," : ""));
+			}
+			out.println("  ],");
+
+			out.println("  \"badList\": [");
+			LinkedList<RCSNode> badList = recalys.getBadList();
+			int rank = 0;
+			for (RCSNode node : badList) {
+				rank++;
+				out.println("    {\"rank\": " + rank + ", \"id\": " + node.getID() + ", \"page\": "
+						+ json(node.getLabel()) + ", \"malus\": " + node.getMalus() + ", \"unweightedMalus\": "
+						+ node.getDistRating() + ", \"latencyWeight\": " + node.getLatencyWeight() + ", \"coverage\": "
+						+ node.getCoverage() + "}" + (rank < badList.size() ? "," : ""));
+			}
+			out.println("  ],");
+
+			out.println("  \"hotList\": [");
+			LinkedList<RCSNode> pages = recalys.getHotList()[0];
+			LinkedList<Double> coverages = recalys.getHotList()[1];
+			for (rank = 0; rank < pages.size(); rank++) {
+				RCSNode node = pages.get(rank);
+				out.println("    {\"rank\": " + (rank + 1) + ", \"id\": " + node.getID() + ", \"page\": "
+						+ json(node.getLabel()) + ", \"coverageAfter\": " + coverages.get(rank) + "}"
+						+ (rank < pages.size() - 1 ? "," : ""));
+			}
+			out.println("  ],");
+
+			out.println("  \"systematicSearchLog\": " + json(systematicSearchLog));
+			out.println("}");
+		}
+	}
+
+	private static String json(String value) {
+		StringBuilder s = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+				s.append('\\').append(c);
+			else if (c == '\n')
+				s.append("\\n");
+			else if (c == '\r')
+				s.append("\\r");
+			else if (c == '\t')
+				s.append("\\t");
+			else if (c < 0x20)
+				s.append(String.format("\\u%04x", (int) c));
+			else
+				s.append(c);
+		}
+		return s.append('"').toString();
+	}
+
+	@Override
+	public void graphLoaded(RCSGraph graph) {
+	}
+
+	@Override
+	public void experimentReplaced() {
+	}
+
+	@Override
+	public void resultsImported(boolean imported) {
+	}
+
+	@Override
+	public void analysisUpdated() {
+	}
+
+	@Override
+	public void analysisStarted(AnalysisProgress progress) {
+	}
+
+	@Override
+	public void analysisProgressChanged(AnalysisProgress progress) {
+	}
+
+	@Override
+	public void analysisEnded(boolean completed) {
+	}
+
+	@Override
+	public void systematicSearchLogChanged(String log) {
+		systematicSearchLog = log;
+	}
+}
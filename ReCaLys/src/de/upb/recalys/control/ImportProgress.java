@@ -0,0 +1,257 @@
+package de.upb.recalys.control;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class tracks the progress of an import of results: the number of users
+ * and sessions that were read and the number of bytes of the file that were
+ * consumed. The progress is published to a {@link Listener} at most once every
+ * {@link #PUBLISH_INTERVAL} milliseconds, so the listener does not have to
+ * cope with one event per session. An import can be cancelled through
+ * {@link #cancel()}. The counters can be shared by several files that are
+ * imported in parallel. An attempt to read a file that may have to be read
+ * again is counted by its own progress (see {@link #attempt()}).
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+public class ImportProgress {
+
+	/** The minimal time between two published events in milliseconds. */
+	public static final long PUBLISH_INTERVAL = 100;
+
+	/**
+	 * A listener that is informed about the progress of an import. It is called
+	 * on the threads that run the import.
+	 */
+	public interface Listener {
+
+		/**
+		 * Is called when the progress of an import has changed.
+		 *
+		 * @param progress
+		 *            the progress
+		 */
+		void progressChanged(ImportProgress progress);
+	}
+
+	private final long totalBytes;
+	private final Listener listener;
+	private final ImportProgress parent;
+	private final AtomicInteger users = new AtomicInteger();
+	private final AtomicInteger sessions = new AtomicInteger();
+	private final AtomicLong bytesRead = new AtomicLong();
+	private final AtomicLong lastPublished;
+	private volatile boolean cancelled;
+
+	/**
+	 * Constructor: Creates a new progress for an import.
+	 *
+	 * @param totalBytes
+	 *            the size of the imported data in bytes or 0, if it is unknown
+	 * @param listener
+	 *            the listener that is informed about the progress or null
+	 */
+	public ImportProgress(long totalBytes, Listener listener) {
+		this.totalBytes = totalBytes;
+		this.listener = listener;
+		parent = null;
+		lastPublished = new AtomicLong(System.nanoTime());
+	}
+
+	private ImportProgress(ImportProgress parent) {
+		totalBytes = parent.totalBytes;
+		listener = null;
+		this.parent = parent;
+		lastPublished = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Creates a progress for an attempt to read a file. What the attempt reads
+	 * is also counted by this progress, so it is published while the attempt
+	 * runs. If the file has to be read again, the counts of the attempt are
+	 * taken back through {@link #discard()}, so the file is not counted twice.
+	 * The attempt is cancelled together with this progress.
+	 *
+	 * @return the progress of the attempt
+	 */
+	ImportProgress attempt() {
+		return new ImportProgress(this);
+	}
+
+	/**
+	 * Takes the counts of an attempt back from the progress it was created by.
+	 */
+	void discard() {
+		if (parent == null)
+			return;
+		parent.users.addAndGet(-users.getAndSet(0));
+		parent.sessions.addAndGet(-sessions.getAndSet(0));
+		parent.bytesRead.addAndGet(-bytesRead.getAndSet(0));
+	}
+
+	/**
+	 * Counts a new user.
+	 */
+	void userRead() {
+		users.incrementAndGet();
+		if (parent != null)
+			parent.userRead();
+		else
+			publishIfDue();
+	}
+
+	/**
+	 * Counts a new session.
+	 */
+	void sessionRead() {
+		sessions.incrementAndGet();
+		if (parent != null)
+			parent.sessionRead();
+		else
+			publishIfDue();
+	}
+
+	/**
+	 * Informs the listener about the final state of the import.
+	 */
+	void finished() {
+		if (listener != null)
+			listener.progressChanged(this);
+	}
+
+	private void publishIfDue() {
+		if (listener == null)
+			return;
+		long now = System.nanoTime();
+		long last = lastPublished.get();
+		// only the thread that moves the time of the last event publishes
+		if (now - last >= PUBLISH_INTERVAL * 1000000L && lastPublished.compareAndSet(last, now)) {
+			listener.progressChanged(this);
+		}
+	}
+
+	/**
+	 * Wraps a stream, so that the bytes read from it are counted. Reading from
+	 * the stream fails with an {@link InterruptedIOException} as soon as the
+	 * import was cancelled or the reading thread was interrupted.
+	 *
+	 * @param in
+	 *            the stream
+	 * @return the counting stream
+	 */
+	InputStream track(InputStream in) {
+		return new FilterInputStream(in) {
+
+			@Override
+			public int read() throws IOException {
+				checkCancelled();
+				int b = super.read();
+				if (b != -1)
+					count(1);
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				checkCancelled();
+				int read = super.read(b, off, len);
+				if (read > 0)
+					count(read);
+				return read;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				count(skipped);
+				return skipped;
+			}
+		};
+	}
+
+	/**
+	 * Checks if the import shall stop.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the import was cancelled or the importing thread was
+	 *             interrupted
+	 */
+	void checkCancelled() throws InterruptedIOException {
+		if (isCancelled())
+			throw new InterruptedIOException("The import was cancelled");
+		if (Thread.currentThread().isInterrupted())
+			throw new InterruptedIOException("The import was interrupted");
+	}
+
+	/**
+	 * Counts bytes that were read without a tracked stream.
+	 *
+	 * @param bytes
+	 *            the number of bytes
+	 */
+	void count(long bytes) {
+		bytesRead.addAndGet(bytes);
+		if (parent != null)
+			parent.count(bytes);
+		else
+			publishIfDue();
+	}
+
+	/**
+	 * Cancels the import. The import stops the next time it reads from the file.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Checks if the import was cancelled.
+	 *
+	 * @return true, if the import was cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled || parent != null && parent.isCancelled();
+	}
+
+	/**
+	 * Returns the number of users that were read so far.
+	 *
+	 * @return users
+	 */
+	public int getUsers() {
+		return users.get();
+	}
+
+	/**
+	 * Returns the number of sessions that were read so far.
+	 *
+	 * @return sessions
+	 */
+	public int getSessions() {
+		return sessions.get();
+	}
+
+	/**
+	 * Returns the number of bytes that were read so far.
+	 *
+	 * @return bytesRead
+	 */
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	/**
+	 * Returns the size of the imported data.
+	 *
+	 * @return totalBytes or 0, if it is unknown
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+}
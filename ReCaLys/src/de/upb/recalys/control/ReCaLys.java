@@ -10,18 +10,23 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
-import javax.swing.UnsupportedLookAndFeelException;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.xml.sax.SAXException;
 
+import de.upb.recalys.model.AnalysisProgress;
+import de.upb.recalys.model.AnalysisResult;
+import de.upb.recalys.model.PathStore;
 import de.upb.recalys.model.RCSGraph;
 import de.upb.recalys.model.RCSNode;
 import de.upb.recalys.model.RCSTask;
@@ -41,30 +46,78 @@ public class ReCaLys {
 	private double maxReturnRate = 0.15;
 	private int timeToThink = 100; // in milliseconds
 	private int nodesToInspect = -1;
-	private GUI gui;
+	private AnalysisListener listener;
 	private RCSGraph graph;
 	private ArrayList<RCSTask> experiment;
-	private LinkedList<RCSNode> badList;
-	@SuppressWarnings("rawtypes")
-	private LinkedList[] hotList;
+	private ResultsImport results;
 	private int userCount = 0;
+	private boolean writeSnapshots = false;
+
+	/* imports are run one after another on a background thread */
+	private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ReCaLys-Import");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/*
+	 * with a GUI, analyses are run one after another on a background thread, so
+	 * the experiment is only read by one analysis at a time
+	 */
+	private final boolean analyseInBackground;
+	private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ReCaLys-Analysis");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/* the progress of the analysis that runs in the background or null */
+	private AnalysisProgress runningAnalysis;
+
+	/* results that are appended as soon as the running analysis has ended */
+	private final ArrayList<ResultsImport> pendingResults = new ArrayList<ResultsImport>();
+
+	/* watches the results of a running experiment in live mode */
+	private ResultsWatcher watcher;
 
 	/**
-	 * Constructor: Creates a new ReCaLys-object
+	 * Constructor: Creates a new ReCaLys-object with a GUI
 	 */
 	public ReCaLys() {
 		super();
+		analyseInBackground = true;
 
 		final ReCaLys recalys = this;
 		SwingUtilities.invokeLater(new Runnable() {
 
 			public void run() {
-				gui = new GUI(recalys);
+				GUI gui = new GUI(recalys);
+				listener = gui;
 				gui.setVisible(true);
 			}
 		});
 	}
 
+	/**
+	 * Constructor: Creates a new ReCaLys-object without a GUI. No classes of AWT
+	 * or Swing are loaded, as long as only the methods that run on the calling
+	 * thread are used, see {@link BatchAnalysis}.
+	 * 
+	 * @param listener
+	 *            the listener that is informed about the analysis
+	 */
+	public ReCaLys(AnalysisListener listener) {
+		super();
+		this.listener = listener;
+		analyseInBackground = false;
+	}
+
 	/**
 	 * Main function that starts the app
 	 * 
@@ -74,8 +127,8 @@ public class ReCaLys {
 	public static void main(String[] args) {
 		try {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-		} catch (ClassNotFoundException | InstantiationException | IllegalAccessException
-				| UnsupportedLookAndFeelException e) {
+		} catch (Exception e) {
+			// not UnsupportedLookAndFeelException, which would load Swing without a GUI
 			Logger.getLogger(ReCaLys.class.getName()).log(Level.INFO,
 					"Look and Feel could not be set to system default", e);
 		}
@@ -104,61 +157,238 @@ public class ReCaLys {
 	}
 
 	/**
-	 * Builds the Graph based on the imported XML-Structure-File
+	 * Builds the Graph based on the imported XML-Structure-File. If there is a
+	 * snapshot of the file next to it, the graph is read from the snapshot.
+	 * Otherwise a snapshot is only written, if this is enabled (see
+	 * {@link #setWriteSnapshots(boolean)}).
 	 * 
 	 * @param importFile
 	 *            the xml-file that contains the website-structure
+	 * @throws IOException
+	 *             if the file cannot be read or parsed, the current graph is
+	 *             kept then
 	 * 
 	 * @author Roman Kober
 	 */
-	public void buildGraphXML(File importFile) {
-		graph = new RCSGraph();
+	public void buildGraphXML(File importFile) throws IOException {
+		RCSGraph newGraph = RCSGraph.load(importFile, writeSnapshots);
+		stopLiveMode();
+		cancelAnalysis();
+		graph = newGraph;
+		// results of another graph cannot be extended
+		results = null;
+		pendingResults.clear();
 
-		graph.buildGraph(importFile);
-
-		graph.computeDistances();
-		graph.buildLevelGraph();
-		graph.addNodeDegrees();
-		graph.addLeavesCount();
 		graph.computeNodesToInspect();
 		graph.computeMinimalLatencies(250);
 
-		gui.getIaGraph().init(graph);
-		gui.getPieGraph().init(graph);
-
-		gui.setAnalyseMenuEnabled(false);
-		gui.setGraphMenuEnabled(true);
+		listener.graphLoaded(graph);
 	}
 
 	/**
-	 * Imports a xml-file that contains the results of an experiment in ReCaPo and
-	 * creates an experiment that can be analyzed.
+	 * Imports xml-files that contain the results of an experiment in ReCaPo and
+	 * creates an experiment that can be analyzed. The results may be split into
+	 * several files, e.g. by date range, which are parsed in parallel and merged
+	 * in the given order. The files are parsed on a background thread, the
+	 * progress is published to the given progress. The imported experiment
+	 * replaces the current one when all files were read and is analysed like by
+	 * {@link #analyse()}, so the GUI is updated only once. A cancelled import
+	 * leaves the current experiment untouched. In any case
+	 * {@link AnalysisListener#resultsImported(boolean)} is called at the end.
 	 * 
-	 * @param importFile
-	 *            file that shall be imported
+	 * @param importFiles
+	 *            files that shall be imported
+	 * @param progress
+	 *            the progress of the import
+	 * @return the future of the import
 	 * @author Roman Kober
 	 */
-	public void importResults(File importFile) {
-		graph.resetGraphProperties();
+	public Future<?> importResults(File[] importFiles, ImportProgress progress) {
+		return submitImport(importFiles, progress, false);
+	}
+
+	/**
+	 * Imports xml-files with further results of the current experiment, e.g. the
+	 * sessions of the participants of the last day. The sessions are added to the
+	 * tasks of the current experiment, the sessions of users that are already in
+	 * the experiment are skipped. Only the added paths are analysed, the analysis
+	 * of the existing paths is kept as long as the parameters of the detection of
+	 * systematic searching were not changed. If there is no experiment yet, the
+	 * files are imported like by {@link #importResults(File[], ImportProgress)}.
+	 * 
+	 * @param importFiles
+	 *            files that shall be imported
+	 * @param progress
+	 *            the progress of the import
+	 * @return the future of the import
+	 */
+	public Future<?> appendResults(File[] importFiles, ImportProgress progress) {
+		return submitImport(importFiles, progress, true);
+	}
+
+	private Future<?> submitImport(final File[] importFiles, final ImportProgress progress, final boolean append) {
+		return importExecutor.submit(new Runnable() {
+
+			public void run() {
+				ResultsImport imported = null;
+				try {
+					imported = ResultsImport.parse(graph, importFiles, progress);
+				} catch (ParserConfigurationException | SAXException | IOException e) {
+					if (!progress.isCancelled())
+						Logger.getLogger(ReCaLys.class.getName()).log(Level.SEVERE, null, e);
+				}
+				progress.finished();
+
+				final ResultsImport newResults = progress.isCancelled() ? null : imported;
+				SwingUtilities.invokeLater(new Runnable() {
+
+					public void run() {
+						if (newResults != null && append && results != null)
+							publishAppendedResults(newResults);
+						else if (newResults != null)
+							publishResults(newResults);
+						listener.resultsImported(newResults != null);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Starts the live mode: a results file or a directory of results files is
+	 * watched while the experiment in ReCaPo is still running. The sessions that
+	 * are already in the files are read first, afterwards every session that is
+	 * appended to a file and every results file that is added to the directory
+	 * is read as soon as it is complete. The new sessions are added to the
+	 * current experiment like by {@link #appendResults(File[], ImportProgress)},
+	 * so only the new paths are analysed. A running live mode is stopped before.
+	 * 
+	 * @param fileOrDirectory
+	 *            the results file or the directory with the results files
+	 * @throws IOException
+	 *             if the file or directory cannot be watched
+	 */
+	public void startLiveMode(File fileOrDirectory) throws IOException {
+		stopLiveMode();
+		watcher = new ResultsWatcher(this, graph, fileOrDirectory);
+		watcher.start();
+	}
+
+	/**
+	 * Stops the live mode. The sessions that were read so far stay in the
+	 * experiment.
+	 */
+	public void stopLiveMode() {
+		if (watcher != null) {
+			watcher.stop();
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Checks if the live mode is active.
+	 * 
+	 * @return true, if a results file or directory is watched
+	 */
+	public boolean isLiveModeActive() {
+		return watcher != null;
+	}
+
+	/**
+	 * Adds the sessions that were read in live mode to the current experiment.
+	 * This method may be called on any thread, the sessions are added on the
+	 * event dispatch thread.
+	 *
+	 * @param source
+	 *            the watcher that read the sessions
+	 * @param newResults
+	 *            the new sessions
+	 */
+	void publishLiveResults(final ResultsWatcher source, final ResultsImport newResults) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			public void run() {
+				// the sessions of a stopped live mode are dropped
+				if (source != watcher)
+					return;
+				if (results != null) {
+					publishAppendedResults(newResults);
+				} else {
+					publishResults(newResults);
+					listener.resultsImported(true);
+				}
+			}
+		});
+	}
 
+	/**
+	 * Imports results files and analyses them on the calling thread. The
+	 * experiment is replaced like by {@link #importResults(File[], ImportProgress)}.
+	 * 
+	 * @param importFiles
+	 *            files that shall be imported
+	 * @param progress
+	 *            the progress of the import
+	 * @throws IOException
+	 *             if a file cannot be read or the import was cancelled
+	 * @throws SAXException
+	 *             if a file cannot be parsed
+	 * @throws ParserConfigurationException
+	 *             if there is no SAX parser
+	 */
+	void importResultsAndWait(File[] importFiles, ImportProgress progress)
+			throws IOException, SAXException, ParserConfigurationException {
+		publishResults(ResultsImport.parse(graph, importFiles, progress));
+		listener.resultsImported(true);
+	}
+
+	/**
+	 * Replaces the current experiment by imported results and analyses it. Must be
+	 * called on the event dispatch thread, if there is a GUI.
+	 *
+	 * @param results
+	 *            the imported results
+	 */
+	private void publishResults(ResultsImport newResults) {
+		// an analysis or appended results of the replaced experiment are dropped
+		cancelAnalysis();
+		pendingResults.clear();
+		graph.resetGraphProperties();
 		complete = false;
-		experiment = new ArrayList<>();
-		userCount = 0;
+		results = newResults;
+		experiment = newResults.getExperiment();
+		userCount = newResults.getUsers().size();
 
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		SAXParser saxParser;
-		try {
-			saxParser = factory.newSAXParser();
+		listener.experimentReplaced();
+		analyse();
+	}
 
-			ResultsContentHandler handler = new ResultsContentHandler(this);
-			saxParser.parse(importFile, handler);
+	/**
+	 * Adds imported results to the current experiment and analyses the added
+	 * paths. Must be called on the event dispatch thread, if there is a GUI.
+	 * While an analysis runs in the background, the results are kept until it
+	 * has ended, because the analysis reads the paths of the experiment.
+	 *
+	 * @param newResults
+	 *            the imported results
+	 */
+	private void publishAppendedResults(ResultsImport newResults) {
+		pendingResults.add(newResults);
+		if (runningAnalysis == null)
+			appendPendingResults();
+	}
 
-			gui.updateGUI();
-			gui.setAnalyseMenuEnabled(true);
-			gui.setPieGraphMenuItemsEnabled(true);
-		} catch (ParserConfigurationException | SAXException | IOException e) {
-			Logger.getLogger(ReCaLys.class.getName()).log(Level.SEVERE, null, e);
+	/**
+	 * Adds the results that were kept back to the current experiment and
+	 * analyses the added paths.
+	 */
+	private void appendPendingResults() {
+		for (ResultsImport newResults : pendingResults) {
+			results.add(newResults, true);
 		}
+		pendingResults.clear();
+		userCount = results.getUsers().size();
+		analyse();
 	}
 
 	/**
@@ -171,6 +401,18 @@ public class ReCaLys {
 		return nodesToInspect;
 	}
 
+	/**
+	 * Sets whether a snapshot of the graph is written next to an imported
+	 * IA-file, so the next import of the same file is faster. This is disabled
+	 * by default.
+	 *
+	 * @param write
+	 *            true, if snapshots shall be written
+	 */
+	public void setWriteSnapshots(boolean write) {
+		writeSnapshots = write;
+	}
+
 	/**
 	 * Sets the maximal problem-rate for the detection of systematic searching.
 	 *
@@ -239,40 +481,130 @@ public class ReCaLys {
 	}
 
 	/**
-	 * Resets the analysis of the experiment on the given graph
+	 * Resets the analysis of the experiment on the given graph. An analysis that
+	 * runs in the background is cancelled.
 	 */
 	public void resetAnalysis() {
-		graph.resetAnalysis(experiment.size());
+		cancelAnalysis();
+		graph.resetAnalysis();
 	}
 
 	/**
-	 * Starts the analysis of the experiment
+	 * Starts the analysis of the experiment. If ReCaLys runs with a GUI, the
+	 * experiment is analysed on a background thread: the listener is informed by
+	 * {@link AnalysisListener#analysisStarted(AnalysisProgress)} and can cancel
+	 * the analysis, the current analysis is shown until the new one replaces it
+	 * as a whole. An analysis that is still running is cancelled. Without a GUI
+	 * the experiment is analysed on the calling thread.
+	 * 
+	 * <p>
+	 * If the experiment was analysed before, only what has changed since is
+	 * computed again, see
+	 * {@link AnalysisResult#update(java.util.List, int, double, double, AnalysisProgress)}:
+	 * the paths that were appended to the experiment or, if the parameters of
+	 * the detection of systematic searching were changed, the detection and the
+	 * tasks whose paths it cuts at other positions. The result is the same as
+	 * that of a complete analysis, except for the order of the detections of
+	 * appended paths in the log of systematic searching.
 	 */
 	public void analyse() {
-		resetAnalysis();
-		graph.computeMinimalLatencies(timeToThink);
-		nodesToInspect = graph.computeNodesToInspect();
-
-		for (RCSTask task : experiment) {
-			task.resetAnalysis();
-			task.detectNodesOnOptimalPaths();
-			task.analysePaths(nodesToInspect, maxProblemRate, maxReturnRate);
+		cancelAnalysis();
+		final AnalysisResult analysis = complete ? graph.getAnalysis() : null;
+		final RCSGraph graph = this.graph;
+		final ArrayList<RCSTask> experiment = this.experiment;
+		final int timeToThink = this.timeToThink;
+		final double maxProblemRate = this.maxProblemRate;
+		final double maxReturnRate = this.maxReturnRate;
+		if (!analyseInBackground) {
+			AnalysisProgress progress = new AnalysisProgress(null);
+			publishAnalysis(analysis == null
+					? AnalysisResult.analyse(graph, experiment, timeToThink, maxProblemRate, maxReturnRate, progress)
+					: analysis.update(experiment, timeToThink, maxProblemRate, maxReturnRate, progress));
+			return;
 		}
 
-		badList = graph.getBadList();
+		final AnalysisProgress progress = new AnalysisProgress(new AnalysisProgress.Listener() {
 
-		hotList = graph.getHotList();
+			public void progressChanged(final AnalysisProgress progress) {
+				SwingUtilities.invokeLater(new Runnable() {
+
+					public void run() {
+						if (progress == runningAnalysis)
+							listener.analysisProgressChanged(progress);
+					}
+				});
+			}
+		});
+		runningAnalysis = progress;
+		listener.analysisStarted(progress);
+		analysisExecutor.submit(new Runnable() {
+
+			public void run() {
+				AnalysisResult newAnalysis = null;
+				try {
+					newAnalysis = analysis == null
+							? AnalysisResult.analyse(graph, experiment, timeToThink, maxProblemRate, maxReturnRate,
+									progress)
+							: analysis.update(experiment, timeToThink, maxProblemRate, maxReturnRate, progress);
+				} catch (CancellationException e) {
+					// the current analysis is kept
+				} catch (RuntimeException e) {
+					Logger.getLogger(ReCaLys.class.getName()).log(Level.SEVERE, null, e);
+				}
+
+				final AnalysisResult result = newAnalysis;
+				SwingUtilities.invokeLater(new Runnable() {
+
+					public void run() {
+						// the analysis was cancelled by a newer one or the experiment was replaced
+						if (progress != runningAnalysis)
+							return;
+						runningAnalysis = null;
+						if (result != null)
+							publishAnalysis(result);
+						listener.analysisEnded(result != null);
+						if (!pendingResults.isEmpty())
+							appendPendingResults();
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Replaces the current analysis by a new one. The nodes, paths and tasks
+	 * show the new analysis at once. Must be called on the event dispatch
+	 * thread, if there is a GUI.
+	 *
+	 * @param analysis
+	 *            the new analysis
+	 */
+	private void publishAnalysis(AnalysisResult analysis) {
+		graph.setAnalysis(analysis);
+		nodesToInspect = analysis.getNodesToInspect();
 		complete = true;
 		updateGUI();
 		updateSystematicSearchLog();
 	}
 
 	/**
-	 * Increases the number of users who attended the experiment by 1
+	 * Cancels the analysis that runs in the background, if there is one.
 	 */
-	public void increaseUserCount() {
-		userCount++;
-		gui.updateGUI();
+	private void cancelAnalysis() {
+		if (runningAnalysis != null) {
+			runningAnalysis.cancel();
+			runningAnalysis = null;
+			listener.analysisEnded(false);
+		}
+	}
+
+	/**
+	 * Checks if an analysis runs in the background.
+	 *
+	 * @return true, if an analysis runs
+	 */
+	public boolean isAnalysisRunning() {
+		return runningAnalysis != null;
 	}
 
 	/**
@@ -302,6 +634,15 @@ public class ReCaLys {
 		return experiment;
 	}
 
+	/**
+	 * Returns the store that holds the paths of all tasks of the experiment
+	 * 
+	 * @return pathStore
+	 */
+	public PathStore getPathStore() {
+		return results == null ? null : results.getPathStore();
+	}
+
 	/**
 	 * Gets the solution-rate over all tasks
 	 * 
@@ -320,7 +661,8 @@ public class ReCaLys {
 	 * @return badList
 	 */
 	public LinkedList<RCSNode> getBadList() {
-		return badList;
+		AnalysisResult analysis = graph == null ? null : graph.getAnalysis();
+		return analysis == null ? null : analysis.getBadList();
 	}
 
 	/**
@@ -330,14 +672,15 @@ public class ReCaLys {
 	 */
 	@SuppressWarnings("rawtypes")
 	public LinkedList[] getHotList() {
-		return hotList;
+		AnalysisResult analysis = graph == null ? null : graph.getAnalysis();
+		return analysis == null ? null : analysis.getHotList();
 	}
 
 	/**
-	 * Updates the GUI
+	 * Informs the listener that the analysis has changed
 	 */
 	public void updateGUI() {
-		gui.updateGUI();
+		listener.analysisUpdated();
 	}
 
 	/**
@@ -353,19 +696,7 @@ public class ReCaLys {
 	 * Updates the Log in the GUI for the detection of systematic searching
 	 */
 	public void updateSystematicSearchLog() {
-		String log = graph.getSystematicSearchingLog();
-		gui.setSSDLog(log);
-
-		if (log.equals(""))
-			return;
-		try {
-			PrintWriter pw = new PrintWriter(new FileWriter("ssd-log.txt"));
-			pw.print(log);
-			pw.flush();
-			pw.close();
-		} catch (IOException ex) {
-			Logger.getLogger(ReCaLys.class.getName()).log(Level.SEVERE, null, ex);
-		}
+		listener.systematicSearchLogChanged(graph.getSystematicSearchingLog());
 	}
 
 	/**
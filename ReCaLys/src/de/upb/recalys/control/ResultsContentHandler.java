@@ -8,6 +8,8 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import de.upb.recalys.helper.IntIndexMap;
+import de.upb.recalys.model.PathStore;
 import de.upb.recalys.model.RCSGraph;
 import de.upb.recalys.model.RCSNode;
 import de.upb.recalys.model.RCSPath;
@@ -25,10 +27,18 @@ public class ResultsContentHandler extends DefaultHandler {
 
 	private ArrayList<RCSTask> experiment;
 	private RCSGraph graph;
-	private HashMap<Integer, RCSNode> nodeMap;
-	private ReCaLys recalys;
+	private PathStore pathStore;
+	private ImportProgress progress;
 	private int indexTask;
 
+	/*
+	 * the tasks are identified by their description. Nearly every description
+	 * belongs to one wanted item, so the position of a task in the experiment is
+	 * first looked up by the itemID and only compared by its description.
+	 */
+	private IntIndexMap taskPositionsByItem;
+	private HashMap<String, Integer> taskPositionsByDescription;
+
 	private HashSet<String> userSet;
 	private String user;
 	private RCSNode currentNode;
@@ -49,21 +59,65 @@ public class ResultsContentHandler extends DefaultHandler {
 			UNKNOWN = "unkown", MS = "ms", DURATION = "duration", RELATIVE_DURATION = "relativeDuration";
 
 	/**
-	 * Constructor: Creates a new PathContentHandler.
+	 * Constructor: Creates a new PathContentHandler that adds the imported tasks
+	 * and paths to the given experiment.
 	 *
-	 * @param recalys
-	 *            object of the main class of this app
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param experiment
+	 *            the list the tasks are added to
+	 * @param pathStore
+	 *            the store the paths are added to
+	 * @param progress
+	 *            the progress the read users and sessions are counted in
 	 */
-	public ResultsContentHandler(ReCaLys recalys) {
-		this.recalys = recalys;
-		this.experiment = recalys.getExperiment();
-		this.graph = recalys.getGraph();
-		this.nodeMap = this.graph.getNodeMap();
+	public ResultsContentHandler(RCSGraph graph, ArrayList<RCSTask> experiment, PathStore pathStore,
+			ImportProgress progress) {
+		this.experiment = experiment;
+		this.graph = graph;
+		this.pathStore = pathStore;
+		this.progress = progress;
 		userSet = new HashSet<String>();
 		indexTask = 0;
+		taskPositionsByItem = new IntIndexMap();
+		taskPositionsByDescription = new HashMap<String, Integer>();
 		skippedNode = new RCSNode(-1, "skipped");
 	}
 
+	/**
+	 * Finds the task with the given description.
+	 *
+	 * @param itemID
+	 *            the itemID of the wanted item
+	 * @param taskDescription
+	 *            the description of the task
+	 * @return the task or null, if there is no task with this description yet
+	 */
+	private RCSTask findTask(int itemID, String taskDescription) {
+		int position = taskPositionsByItem.get(itemID);
+		if (position != IntIndexMap.NOT_FOUND
+				&& taskDescription.equals(experiment.get(position).getAlternativeTargetName()))
+			return experiment.get(position);
+		Integer fallback = taskPositionsByDescription.get(taskDescription);
+		return fallback == null ? null : experiment.get(fallback);
+	}
+
+	/**
+	 * Adds a new task to the experiment and to the indices.
+	 *
+	 * @param itemID
+	 *            the itemID of the wanted item
+	 * @param task
+	 *            the new task
+	 */
+	private void addTask(int itemID, RCSTask task) {
+		int position = experiment.size();
+		experiment.add(task);
+		taskPositionsByDescription.put(task.getAlternativeTargetName(), position);
+		if (!taskPositionsByItem.containsKey(itemID))
+			taskPositionsByItem.put(itemID, position);
+	}
+
 	/**
 	 * Searches for appearance of wanted Items and then creates a list of all wanted
 	 * items.
@@ -82,64 +136,84 @@ public class ResultsContentHandler extends DefaultHandler {
 	@Override
 	public void startElement(String uri, String localName, String qName, Attributes atrbts) throws SAXException {
 		if (qName.equals(EXP_USER_ID)) {
-			user = atrbts.getValue(VALUE);
-			if (userSet.add(user)) {
-				recalys.increaseUserCount();
-			}
-			currentNode = graph.getRoot();
+			startUser(atrbts.getValue(VALUE));
 		} else if (qName.equals(WANTED_ITEM)) {
-			// get all relevant parameters for a new Task
-			String taskDescription = atrbts.getValue(VALUE);
 			// int id = Integer.parseInt(atrbts.getValue(RESULT_TASK_ID));
-			int itemID = Integer.parseInt(atrbts.getValue(ITEM_ID));
-			RCSNode target = graph.getNodeByID(itemID);
-			RCSNode source = graph.getRoot();
-
-			String status = atrbts.getValue(STATUS);
-			skipped = status.equals(SKIPPED) ? true : false;
-			unknown = status.equals(UNKNOWN) ? true : false;
-
-			String duration = atrbts.getValue(DURATION);
-
-			// find out if the task exists already in the experiment list
-			boolean existsAlready = false;
-			for (RCSTask task : experiment) {
-				if (taskDescription.equals(task.getAlternativeTargetName())) {
-					existsAlready = true;
-					break;
-				}
-			}
-
-			// add new Task if it is really a new task
-			if (!existsAlready) {
-				RCSTask newTask = new RCSTask(graph, source, target, taskDescription, indexTask);
-				experiment.add(newTask);
-				indexTask++;
-			}
-
-			// initialize new path and add it to the current task
-			RCSTask task;
-			for (int i = 0; i < experiment.size(); i++) {
-				task = experiment.get(i);
-				if (taskDescription.equals(task.getAlternativeTargetName())) {
-					newPath = new RCSPath(graph, graph.getRoot(), target);
-					newPath.setTask(task);
-					newPath.setUser(user);
-					newPath.setDuration(duration);
-					return;
-				}
-			}
+			startSession(atrbts.getValue(VALUE), Integer.parseInt(atrbts.getValue(ITEM_ID)),
+					atrbts.getValue(STATUS), atrbts.getValue(DURATION));
 		} else if (qName.equals(ITEM)) {
 			String nodeLabel = atrbts.getValue(VALUE);
-			Integer itemID = Integer.parseInt(atrbts.getValue(ITEM_ID));
-			time = Integer.parseInt(atrbts.getValue(RELATIVE_DURATION)) / 1000;
-			itemCount++;
-			if (nodeLabel.equals(ROOT)) {
-				currentNode = graph.getRoot();
-			} else {
-				currentNode = nodeMap.get(itemID);
-				return;
-			}
+			int itemID = Integer.parseInt(atrbts.getValue(ITEM_ID));
+			startItem(nodeLabel.equals(ROOT), itemID, Integer.parseInt(atrbts.getValue(RELATIVE_DURATION)));
+		}
+	}
+
+	/**
+	 * Starts the sessions of a user.
+	 *
+	 * @param user
+	 *            the id of the user
+	 */
+	void startUser(String user) {
+		this.user = user;
+		if (userSet.add(user)) {
+			progress.userRead();
+		}
+		currentNode = graph.getRoot();
+	}
+
+	/**
+	 * Starts a new session of the current user, i.e. a new path of a task.
+	 *
+	 * @param taskDescription
+	 *            the description of the task
+	 * @param itemID
+	 *            the itemID of the wanted item
+	 * @param status
+	 *            the status of the session
+	 * @param duration
+	 *            the duration of the session in the format "HH:MM:SS"
+	 */
+	void startSession(String taskDescription, int itemID, String status, String duration) {
+		progress.sessionRead();
+		// get all relevant parameters for a new Task
+		RCSNode target = graph.getNodeByID(itemID);
+		RCSNode source = graph.getRoot();
+
+		skipped = status.equals(SKIPPED) ? true : false;
+		unknown = status.equals(UNKNOWN) ? true : false;
+
+		// find out if the task exists already in the experiment list and add a
+		// new task if it is really a new task
+		RCSTask task = findTask(itemID, taskDescription);
+		if (task == null) {
+			task = new RCSTask(graph, source, target, taskDescription, indexTask);
+			addTask(itemID, task);
+			indexTask++;
+		}
+
+		// initialize new path and add it to the current task
+		newPath = pathStore.createPath(target, user, duration);
+		newPath.setTask(task);
+	}
+
+	/**
+	 * Starts an item that was visited in the current session.
+	 *
+	 * @param root
+	 *            true, if the item is the root
+	 * @param itemID
+	 *            the itemID of the item
+	 * @param relativeDuration
+	 *            the time spent at the item in microseconds
+	 */
+	void startItem(boolean root, int itemID, int relativeDuration) {
+		time = relativeDuration / 1000;
+		itemCount++;
+		if (root) {
+			currentNode = graph.getRoot();
+		} else {
+			currentNode = graph.getNodeByID(itemID);
 		}
 	}
 
@@ -158,31 +232,50 @@ public class ResultsContentHandler extends DefaultHandler {
 	 */
 	public void endElement(String uri, String localName, String qName) throws SAXException {
 		if (qName.equals(WANTED_ITEM)) {
-			/*
-			 * skipped tasks that have no path are not imported, because they have no
-			 * relevant data. The tester didn't even try to complete the task. Paths that
-			 * have an "unknown" status are also not imported.
-			 */
-			if (skipped && itemCount == 0 || unknown) {
-				newPath = null;
-				currentNode = null;
-				time = 0;
-				itemCount = 0;
-				return;
-			}
-			// Add the path to the task
-			newPath.getTask().addPath(newPath);
+			endSession();
+		} else if (qName.equals("item")) {
+			endItem();
+		}
+	}
 
+	/**
+	 * Ends the current session and adds its path to its task.
+	 */
+	void endSession() {
+		/*
+		 * skipped tasks that have no path are not imported, because they have no
+		 * relevant data. The tester didn't even try to complete the task. Paths that
+		 * have an "unknown" status are also not imported.
+		 */
+		if (skipped && itemCount == 0 || unknown) {
+			pathStore.discardPath(newPath);
+		} else if (newPath.getTask().addPath(newPath)) {
+			// Add the path to the task
 			newPath.setSkipped(skipped);
 			newPath.setFinalized();
-			newPath = null;
-			currentNode = null;
-			time = 0;
-			itemCount = 0;
-
-		} else if (qName.equals("item")) {
-			newPath.addNode(currentNode, time);
+		} else {
+			// the target of the path does not belong to its task
+			pathStore.discardPath(newPath);
 		}
+		newPath = null;
+		currentNode = null;
+		time = 0;
+		itemCount = 0;
 	}
 
+	/**
+	 * Ends the current item and adds it to the path of the current session.
+	 */
+	void endItem() {
+		newPath.addNode(currentNode, time);
+	}
+
+	/**
+	 * Returns the different users that were imported
+	 * 
+	 * @return users
+	 */
+	public HashSet<String> getUsers() {
+		return userSet;
+	}
 }
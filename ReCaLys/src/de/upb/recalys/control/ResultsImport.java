@@ -0,0 +1,283 @@
+package de.upb.recalys.control;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import de.upb.recalys.helper.CompressedInput;
+import de.upb.recalys.model.PathStore;
+import de.upb.recalys.model.RCSGraph;
+import de.upb.recalys.model.RCSPath;
+import de.upb.recalys.model.RCSTask;
+
+/**
+ * This class holds the results that were imported from one or more files: the
+ * tasks, the store of their paths and the users. If the results are split into
+ * several files, each file is parsed on its own thread into its own
+ * ResultsImport and the parts are merged in the order of the files afterwards,
+ * so the experiment is the same as if the files had been imported one after
+ * another.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+class ResultsImport {
+
+	/*
+	 * files are read by the ResultsScanner, unless it is switched off with
+	 * -Drecalys.fastImport=false
+	 */
+	private static final boolean FAST_IMPORT = !"false".equals(System.getProperty("recalys.fastImport"));
+
+	private final RCSGraph graph;
+	private final ArrayList<RCSTask> experiment;
+	private final PathStore pathStore;
+	private final HashSet<String> users;
+
+	/* the tasks are identified by their description, see ResultsContentHandler */
+	private HashMap<String, RCSTask> tasksByDescription;
+
+	/**
+	 * Constructor: Creates new empty results.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 */
+	ResultsImport(RCSGraph graph) {
+		this.graph = graph;
+		experiment = new ArrayList<RCSTask>();
+		pathStore = new PathStore(graph);
+		users = new HashSet<String>();
+	}
+
+	/**
+	 * Imports the results from several files. The files are parsed in parallel
+	 * and merged in the given order.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param files
+	 *            the files that shall be imported
+	 * @param progress
+	 *            the progress of the import
+	 * @return the imported results
+	 * @throws IOException
+	 *             if a file cannot be read or the import was cancelled
+	 * @throws SAXException
+	 *             if a file cannot be parsed
+	 * @throws ParserConfigurationException
+	 *             if there is no SAX parser
+	 */
+	static ResultsImport parse(final RCSGraph graph, File[] files, final ImportProgress progress)
+			throws IOException, SAXException, ParserConfigurationException {
+		if (files.length == 1)
+			return parse(graph, files[0], progress);
+
+		ExecutorService executor = Executors
+				.newFixedThreadPool(Math.min(files.length, Runtime.getRuntime().availableProcessors()));
+		try {
+			ArrayList<Future<ResultsImport>> parts = new ArrayList<Future<ResultsImport>>();
+			for (final File file : files) {
+				parts.add(executor.submit(new Callable<ResultsImport>() {
+
+					public ResultsImport call() throws Exception {
+						return parse(graph, file, progress);
+					}
+				}));
+			}
+			ResultsImport results = null;
+			for (Future<ResultsImport> part : parts) {
+				if (results == null)
+					results = get(part);
+				else
+					results.add(get(part), false);
+			}
+			return results;
+		} finally {
+			// stops the other files if one of them failed
+			executor.shutdownNow();
+		}
+	}
+
+	private static ResultsImport get(Future<ResultsImport> part)
+			throws IOException, SAXException, ParserConfigurationException {
+		try {
+			return part.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The import was interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof SAXException)
+				throw (SAXException) cause;
+			if (cause instanceof ParserConfigurationException)
+				throw (ParserConfigurationException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw (Error) cause;
+		}
+	}
+
+	/**
+	 * Imports the results from a file. The file is read by the
+	 * {@link ResultsScanner} and only by SAX, if it contains something the
+	 * scanner does not expect or if it is compressed. A compressed file is
+	 * decompressed on a reader thread while it is parsed (see
+	 * {@link CompressedInput}), its progress is counted in compressed bytes.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param file
+	 *            the file that shall be imported
+	 * @param progress
+	 *            the progress of the import
+	 * @return the imported results
+	 * @throws IOException
+	 *             if the file cannot be read or the import was cancelled
+	 * @throws SAXException
+	 *             if the file cannot be parsed
+	 * @throws ParserConfigurationException
+	 *             if there is no SAX parser
+	 */
+	static ResultsImport parse(RCSGraph graph, File file, ImportProgress progress)
+			throws IOException, SAXException, ParserConfigurationException {
+		if (FAST_IMPORT && !CompressedInput.isCompressed(file)) {
+			ResultsImport results = new ResultsImport(graph);
+			// a file that is read again by SAX must not be counted twice
+			ImportProgress attempt = progress.attempt();
+			ResultsContentHandler handler = new ResultsContentHandler(graph, results.experiment, results.pathStore,
+					attempt);
+			if (ResultsScanner.scan(file, handler, attempt)) {
+				results.users.addAll(handler.getUsers());
+				return results;
+			}
+			// the file is read again by SAX
+			attempt.discard();
+		}
+		try (InputStream in = CompressedInput.open(progress.track(new FileInputStream(file)))) {
+			return parse(graph, in, file.toURI().toString(), progress);
+		}
+	}
+
+	/**
+	 * Imports the results from a stream. The bytes read from the stream are not
+	 * counted in the progress.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param in
+	 *            the stream with the xml-document
+	 * @param systemId
+	 *            the URI of the document
+	 * @param progress
+	 *            the progress of the import
+	 * @return the imported results
+	 * @throws IOException
+	 *             if the stream cannot be read or the import was cancelled
+	 * @throws SAXException
+	 *             if the document cannot be parsed
+	 * @throws ParserConfigurationException
+	 *             if there is no SAX parser
+	 */
+	static ResultsImport parse(RCSGraph graph, InputStream in, String systemId, ImportProgress progress)
+			throws IOException, SAXException, ParserConfigurationException {
+		ResultsImport results = new ResultsImport(graph);
+		ResultsContentHandler handler = new ResultsContentHandler(graph, results.experiment, results.pathStore,
+				progress);
+		InputSource source = new InputSource(in);
+		source.setSystemId(systemId);
+		SAXParserFactory.newInstance().newSAXParser().parse(source, handler);
+		results.users.addAll(handler.getUsers());
+		return results;
+	}
+
+	/**
+	 * Adds other results to these results. The paths of a task are added to the
+	 * task with the same description, tasks that are not known yet are appended
+	 * to the experiment. Users that are in both results are counted once.
+	 *
+	 * @param other
+	 *            the results that shall be added
+	 * @param skipKnownUsers
+	 *            true, if the paths of users that are already in these results
+	 *            shall not be added
+	 */
+	void add(ResultsImport other, boolean skipKnownUsers) {
+		if (tasksByDescription == null) {
+			tasksByDescription = new HashMap<String, RCSTask>();
+			for (RCSTask task : experiment) {
+				tasksByDescription.put(task.getAlternativeTargetName(), task);
+			}
+		}
+		for (RCSTask otherTask : other.experiment) {
+			RCSTask task = tasksByDescription.get(otherTask.getAlternativeTargetName());
+			// a task without paths is kept, like on import
+			if (task == null && otherTask.getPaths().isEmpty())
+				task = addTask(otherTask);
+			for (RCSPath path : otherTask.getPaths()) {
+				if (skipKnownUsers && users.contains(path.getUser()))
+					continue;
+				if (task == null)
+					task = addTask(otherTask);
+				RCSPath copy = pathStore.copyPath(path);
+				// like on import, paths to another target than the task's are dropped
+				if (!task.addPath(copy))
+					pathStore.discardPath(copy);
+			}
+		}
+		users.addAll(other.users);
+	}
+
+	private RCSTask addTask(RCSTask otherTask) {
+		RCSTask task = new RCSTask(graph, graph.getRoot(), otherTask.getTarget(),
+				otherTask.getAlternativeTargetName(), experiment.size());
+		experiment.add(task);
+		tasksByDescription.put(task.getAlternativeTargetName(), task);
+		return task;
+	}
+
+	/**
+	 * Returns the imported tasks.
+	 *
+	 * @return experiment
+	 */
+	ArrayList<RCSTask> getExperiment() {
+		return experiment;
+	}
+
+	/**
+	 * Returns the store of the imported paths.
+	 *
+	 * @return pathStore
+	 */
+	PathStore getPathStore() {
+		return pathStore;
+	}
+
+	/**
+	 * Returns the different users of the imported results.
+	 *
+	 * @return users
+	 */
+	HashSet<String> getUsers() {
+		return users;
+	}
+}
@@ -0,0 +1,485 @@
+package de.upb.recalys.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads a results file of ReCaPo without a general xml parser. The
+ * file is mapped into memory and scanned for the few elements and attributes
+ * that are generated by ReCaPo. Numbers are parsed directly from the bytes, only
+ * the ids of the users and the values of the sessions become Strings. The
+ * results are handed to a {@link ResultsContentHandler} like by SAX.
+ *
+ * <p>
+ * The scanner only accepts the structure that ReCaPo writes. As soon as it finds
+ * anything else, e.g. an unknown element, a DOCTYPE or another encoding than
+ * UTF-8, it gives up and the file has to be read by SAX, which also reports the
+ * errors of broken files.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+class ResultsScanner {
+
+	/* the bytes between two updates of the progress */
+	private static final int PROGRESS_STEP = 1 << 20;
+
+	/* the known elements and the element each of them must be nested in */
+	private static final int NONE = -1, CARDSORT = 0, EXP_USER_ID = 1, WANTED_ITEM = 2, ITEM = 3, MS = 4, US = 5;
+	private static final byte[][] ELEMENTS = bytes("cardsort", "exp_user_id", "wanted_item", "item", "ms", "us");
+	private static final int[] PARENTS = { NONE, CARDSORT, EXP_USER_ID, WANTED_ITEM, ITEM, ITEM };
+
+	/* the relevant attributes */
+	private static final int VALUE = 0, ITEM_ID = 1, STATUS = 2, DURATION = 3, RELATIVE_DURATION = 4;
+	private static final byte[][] ATTRIBUTES = bytes("value", "itemID", "status", "duration", "relativeDuration");
+
+	private static final byte[] ROOT = "Dummy".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Is thrown when the file contains something that the scanner does not
+	 * expect.
+	 */
+	@SuppressWarnings("serial")
+	private static class UnexpectedInputException extends Exception {
+
+		UnexpectedInputException() {
+			// the exception only ends the scan
+			super(null, null, false, false);
+		}
+	}
+
+	private final ByteBuffer in;
+	private final int limit;
+	private final ResultsContentHandler handler;
+	private final ImportProgress progress;
+	private int pos;
+	private int reported;
+
+	/* the positions of the values of the relevant attributes of the current element */
+	private final int[] valueStarts = new int[ATTRIBUTES.length];
+	private final int[] valueEnds = new int[ATTRIBUTES.length];
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+	private byte[] scratch = new byte[256];
+
+	private ResultsScanner(ByteBuffer in, ResultsContentHandler handler, ImportProgress progress) {
+		this.in = in;
+		this.limit = in.limit();
+		this.handler = handler;
+		this.progress = progress;
+	}
+
+	/**
+	 * Reads a results file.
+	 *
+	 * @param file
+	 *            the results file
+	 * @param handler
+	 *            the handler the results are handed to
+	 * @param progress
+	 *            the progress of the import
+	 * @return true, if the file was read. If it is false, the file contains
+	 *         something unexpected and the results in the handler are
+	 *         incomplete.
+	 * @throws IOException
+	 *             if the file cannot be read or the import was cancelled
+	 */
+	static boolean scan(File file, ResultsContentHandler handler, ImportProgress progress) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				return false;
+			ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			try {
+				new ResultsScanner(in, handler, progress).scan();
+				return true;
+			} catch (UnexpectedInputException e) {
+				return false;
+			}
+		}
+	}
+
+	private void scan() throws IOException, UnexpectedInputException {
+		int[] open = new int[PARENTS.length];
+		int depth = 0;
+		boolean rootClosed = false;
+
+		// byte order mark of UTF-8
+		if (limit >= 3 && in.get(0) == (byte) 0xEF && in.get(1) == (byte) 0xBB && in.get(2) == (byte) 0xBF)
+			pos = 3;
+		if (startsWith(pos, "<?xml"))
+			declaration();
+
+		while (true) {
+			// only whitespace is allowed outside of the root
+			if (depth == 0)
+				skipWhitespace();
+			else
+				pos = indexOf((byte) '<', pos);
+			if (pos >= limit)
+				break;
+			if (in.get(pos) != '<')
+				throw new UnexpectedInputException();
+			pos++;
+
+			byte b = get(pos);
+			if (b == '?') {
+				pos = indexOf("?>", pos) + 2;
+			} else if (b == '!') {
+				if (!startsWith(pos, "!--"))
+					throw new UnexpectedInputException();
+				pos = indexOf("-->", pos + 3) + 3;
+			} else if (b == '/') {
+				pos++;
+				int element = name();
+				skipWhitespace();
+				expect('>');
+				if (depth == 0 || open[depth - 1] != element)
+					throw new UnexpectedInputException();
+				depth--;
+				endElement(element);
+				rootClosed = depth == 0;
+			} else {
+				int element = name();
+				if (rootClosed || PARENTS[element] != (depth == 0 ? NONE : open[depth - 1]))
+					throw new UnexpectedInputException();
+				boolean empty = attributes();
+				startElement(element);
+				if (empty)
+					endElement(element);
+				else
+					open[depth++] = element;
+			}
+
+			if (pos - reported >= PROGRESS_STEP) {
+				progress.count(pos - reported);
+				reported = pos;
+				progress.checkCancelled();
+			}
+		}
+		if (!rootClosed)
+			throw new UnexpectedInputException();
+		progress.count(limit - reported);
+	}
+
+	private void startElement(int element) throws UnexpectedInputException {
+		switch (element) {
+		case EXP_USER_ID:
+			handler.startUser(string(VALUE));
+			break;
+		case WANTED_ITEM:
+			handler.startSession(string(VALUE), integer(ITEM_ID), string(STATUS), string(DURATION));
+			break;
+		case ITEM:
+			if (valueStarts[VALUE] < 0)
+				throw new UnexpectedInputException();
+			handler.startItem(equals(VALUE, ROOT), integer(ITEM_ID), integer(RELATIVE_DURATION));
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void endElement(int element) {
+		if (element == WANTED_ITEM)
+			handler.endSession();
+		else if (element == ITEM)
+			handler.endItem();
+	}
+
+	/**
+	 * Checks the encoding in the xml declaration.
+	 */
+	private void declaration() throws UnexpectedInputException {
+		int end = indexOf("?>", pos);
+		int encoding = pos;
+		while (encoding < end && !startsWith(encoding, "encoding")) {
+			encoding++;
+		}
+		if (encoding < end) {
+			pos = encoding + "encoding".length();
+			skipWhitespace();
+			expect('=');
+			skipWhitespace();
+			byte quote = get(pos++);
+			int start = pos;
+			pos = indexOf(quote, pos);
+			String name = new String(bytes(start, pos), StandardCharsets.US_ASCII);
+			if (!name.equalsIgnoreCase("UTF-8") && !name.equalsIgnoreCase("UTF8"))
+				throw new UnexpectedInputException();
+		}
+		pos = end + 2;
+	}
+
+	/**
+	 * Reads the name of an element.
+	 *
+	 * @return the known element
+	 */
+	private int name() throws UnexpectedInputException {
+		int start = pos;
+		while (pos < limit && !isWhitespace(in.get(pos)) && in.get(pos) != '>' && in.get(pos) != '/') {
+			pos++;
+		}
+		for (int element = 0; element < ELEMENTS.length; element++) {
+			if (equals(start, pos, ELEMENTS[element]))
+				return element;
+		}
+		throw new UnexpectedInputException();
+	}
+
+	/**
+	 * Reads the attributes of an element up to the end of its start tag.
+	 *
+	 * @return true, if the element is empty
+	 */
+	private boolean attributes() throws UnexpectedInputException {
+		Arrays.fill(valueStarts, -1);
+		while (true) {
+			boolean separated = skipWhitespace();
+			byte b = get(pos);
+			if (b == '>') {
+				pos++;
+				return false;
+			}
+			if (b == '/') {
+				pos++;
+				expect('>');
+				return true;
+			}
+			if (!separated)
+				throw new UnexpectedInputException();
+
+			int nameStart = pos;
+			while (pos < limit && in.get(pos) != '=' && !isWhitespace(in.get(pos))) {
+				pos++;
+			}
+			int nameEnd = pos;
+			skipWhitespace();
+			expect('=');
+			skipWhitespace();
+			byte quote = get(pos++);
+			if (quote != '"' && quote != '\'')
+				throw new UnexpectedInputException();
+			int valueStart = pos;
+			for (b = get(pos); b != quote; b = get(++pos)) {
+				// SAX would normalize the whitespace or report an error
+				if (b == '<' || b == '\t' || b == '\n' || b == '\r')
+					throw new UnexpectedInputException();
+			}
+			int valueEnd = pos++;
+
+			for (int attribute = 0; attribute < ATTRIBUTES.length; attribute++) {
+				if (equals(nameStart, nameEnd, ATTRIBUTES[attribute])) {
+					if (valueStarts[attribute] >= 0)
+						throw new UnexpectedInputException();
+					valueStarts[attribute] = valueStart;
+					valueEnds[attribute] = valueEnd;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of an attribute of the current element as String.
+	 *
+	 * @return the value or null, if the element has no such attribute
+	 */
+	private String string(int attribute) throws UnexpectedInputException {
+		int start = valueStarts[attribute];
+		if (start < 0)
+			return null;
+		int length = valueEnds[attribute] - start;
+		if (scratch.length < length)
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		boolean escaped = false;
+		for (int i = 0; i < length; i++) {
+			scratch[i] = in.get(start + i);
+			escaped |= scratch[i] == '&';
+		}
+		String value;
+		try {
+			CharBuffer chars = decoder.decode(ByteBuffer.wrap(scratch, 0, length));
+			value = chars.toString();
+		} catch (CharacterCodingException e) {
+			throw new UnexpectedInputException();
+		}
+		return escaped ? unescape(value) : value;
+	}
+
+	/**
+	 * Replaces the predefined entities and the character references of a value.
+	 */
+	private static String unescape(String value) throws UnexpectedInputException {
+		StringBuilder result = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c != '&') {
+				result.append(c);
+				continue;
+			}
+			int end = value.indexOf(';', i);
+			if (end < 0)
+				throw new UnexpectedInputException();
+			String entity = value.substring(i + 1, end);
+			if (entity.equals("amp"))
+				result.append('&');
+			else if (entity.equals("lt"))
+				result.append('<');
+			else if (entity.equals("gt"))
+				result.append('>');
+			else if (entity.equals("quot"))
+				result.append('"');
+			else if (entity.equals("apos"))
+				result.append('\'');
+			else if (entity.matches("#[0-9]{1,7}"))
+				result.appendCodePoint(codePoint(entity.substring(1), 10));
+			else if (entity.matches("#x[0-9a-fA-F]{1,6}"))
+				result.appendCodePoint(codePoint(entity.substring(2), 16));
+			else
+				throw new UnexpectedInputException();
+			i = end;
+		}
+		return result.toString();
+	}
+
+	private static int codePoint(String digits, int radix) throws UnexpectedInputException {
+		int codePoint = Integer.parseInt(digits, radix);
+		if (codePoint == 0 || !Character.isValidCodePoint(codePoint))
+			throw new UnexpectedInputException();
+		return codePoint;
+	}
+
+	/**
+	 * Parses the value of an attribute of the current element as int, like
+	 * {@link Integer#parseInt(String)}.
+	 *
+	 * @return the value
+	 */
+	private int integer(int attribute) throws UnexpectedInputException {
+		int i = valueStarts[attribute];
+		int end = valueEnds[attribute];
+		if (i < 0 || i == end)
+			throw new UnexpectedInputException();
+		boolean negative = false;
+		byte b = in.get(i);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			if (++i == end)
+				throw new UnexpectedInputException();
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			b = in.get(i);
+			if (b < '0' || b > '9')
+				throw new UnexpectedInputException();
+			value = value * 10 + (b - '0');
+			if (value > Integer.MAX_VALUE + 1L)
+				throw new UnexpectedInputException();
+		}
+		if (negative)
+			value = -value;
+		if (value > Integer.MAX_VALUE)
+			throw new UnexpectedInputException();
+		return (int) value;
+	}
+
+	private boolean equals(int attribute, byte[] value) {
+		return equals(valueStarts[attribute], valueEnds[attribute], value);
+	}
+
+	private boolean equals(int start, int end, byte[] name) {
+		if (end - start != name.length)
+			return false;
+		for (int i = 0; i < name.length; i++) {
+			if (in.get(start + i) != name[i])
+				return false;
+		}
+		return true;
+	}
+
+	private boolean startsWith(int position, String prefix) {
+		if (position + prefix.length() > limit)
+			return false;
+		for (int i = 0; i < prefix.length(); i++) {
+			if (in.get(position + i) != prefix.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the next occurrence of a byte.
+	 *
+	 * @return the position of the byte or the end of the file
+	 */
+	private int indexOf(byte b, int from) {
+		int i = from;
+		while (i < limit && in.get(i) != b) {
+			i++;
+		}
+		return i;
+	}
+
+	private int indexOf(String s, int from) throws UnexpectedInputException {
+		for (int i = indexOf((byte) s.charAt(0), from); i < limit; i = indexOf((byte) s.charAt(0), i + 1)) {
+			if (startsWith(i, s))
+				return i;
+		}
+		throw new UnexpectedInputException();
+	}
+
+	/**
+	 * Skips whitespace.
+	 *
+	 * @return true, if there was whitespace
+	 */
+	private boolean skipWhitespace() {
+		int start = pos;
+		while (pos < limit && isWhitespace(in.get(pos))) {
+			pos++;
+		}
+		return pos > start;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	private void expect(char c) throws UnexpectedInputException {
+		if (get(pos) != c)
+			throw new UnexpectedInputException();
+		pos++;
+	}
+
+	private byte get(int position) throws UnexpectedInputException {
+		if (position >= limit)
+			throw new UnexpectedInputException();
+		return in.get(position);
+	}
+
+	private byte[] bytes(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = in.get(start + i);
+		}
+		return bytes;
+	}
+
+	private static byte[][] bytes(String... names) {
+		byte[][] bytes = new byte[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			bytes[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+		}
+		return bytes;
+	}
+}
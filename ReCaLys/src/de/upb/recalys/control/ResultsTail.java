@@ -0,0 +1,216 @@
+package de.upb.recalys.control;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import de.upb.recalys.model.RCSGraph;
+
+/**
+ * This class reads the sessions that were appended to a results file since it
+ * was read the last time. It remembers the byte offset behind the last complete
+ * {@code <exp_user_id>} block and the prolog of the file. The new blocks are
+ * parsed as a document of their own that consists of the prolog, the blocks and
+ * the end tag of the root, so a session that is only partly written is not read
+ * before it is complete.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+class ResultsTail {
+
+	private static final byte[] SESSION_START = "<exp_user_id".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] SESSION_END = "</exp_user_id>".getBytes(StandardCharsets.US_ASCII);
+	private static final String ROOT = "cardsort";
+	private static final byte[] ROOT_END = ("</" + ROOT + ">").getBytes(StandardCharsets.US_ASCII);
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private final File file;
+
+	/* the position behind the last session that was read */
+	private long offset;
+
+	/* everything in front of the first session, null until it was read */
+	private byte[] prolog;
+
+	private boolean ignored;
+
+	/**
+	 * Constructor: Creates a new tail of a results file that has not been read
+	 * yet.
+	 *
+	 * @param file
+	 *            the results file
+	 */
+	ResultsTail(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the file of this tail.
+	 *
+	 * @return file
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Reads the sessions that were completed since the last call.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param progress
+	 *            the progress of the import
+	 * @return the new results or null, if there are no new complete sessions
+	 * @throws IOException
+	 *             if the file cannot be read
+	 * @throws SAXException
+	 *             if the new sessions cannot be parsed. They are skipped on the
+	 *             next call.
+	 * @throws ParserConfigurationException
+	 *             if there is no SAX parser
+	 */
+	ResultsImport readNewSessions(RCSGraph graph, ImportProgress progress)
+			throws IOException, SAXException, ParserConfigurationException {
+		if (ignored || !file.isFile())
+			return null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < offset) {
+				// the file was exported again, the known users are skipped on append
+				offset = 0;
+				prolog = null;
+			}
+			if (prolog == null) {
+				long start = indexOf(channel, SESSION_START, 0, size);
+				if (start < 0)
+					return null;
+				prolog = new byte[(int) start];
+				channel.read(ByteBuffer.wrap(prolog), 0);
+				if (!new String(prolog, StandardCharsets.ISO_8859_1).contains("<" + ROOT)) {
+					// not a results file of ReCaPo
+					ignored = true;
+					return null;
+				}
+				offset = start;
+			}
+			long end = lastIndexOf(channel, SESSION_END, offset, size);
+			if (end < 0)
+				return null;
+			end += SESSION_END.length;
+
+			InputStream sessions = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+					new ByteArrayInputStream(prolog), region(channel, offset, end), new ByteArrayInputStream(ROOT_END))));
+			long start = offset;
+			// a damaged block must not be read again and again
+			offset = end;
+			try {
+				return ResultsImport.parse(graph, progress.track(sessions), file.toURI().toString(), progress);
+			} catch (IOException e) {
+				offset = start;
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Returns a stream of a region of the file.
+	 */
+	private static InputStream region(FileChannel channel, long from, long to) throws IOException {
+		channel.position(from);
+		return new FilterInputStream(Channels.newInputStream(channel)) {
+			private long remaining = to - from;
+
+			@Override
+			public int read() throws IOException {
+				if (remaining <= 0)
+					return -1;
+				int b = super.read();
+				if (b != -1)
+					remaining--;
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (remaining <= 0)
+					return -1;
+				int read = super.read(b, off, (int) Math.min(len, remaining));
+				if (read > 0)
+					remaining -= read;
+				return read;
+			}
+
+			@Override
+			public void close() {
+				// the channel is closed by the tail
+			}
+		};
+	}
+
+	/**
+	 * Finds the first occurrence of a pattern in a region of the file.
+	 *
+	 * @return the position of the pattern or -1, if it is not in the region
+	 */
+	private static long indexOf(FileChannel channel, byte[] pattern, long from, long to) throws IOException {
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+		for (long position = from; position + pattern.length <= to; position += BLOCK_SIZE - pattern.length + 1) {
+			int length = readBlock(channel, block, position, to);
+			for (int i = 0; i + pattern.length <= length; i++) {
+				if (matches(block, i, pattern))
+					return position + i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the last occurrence of a pattern in a region of the file.
+	 *
+	 * @return the position of the pattern or -1, if it is not in the region
+	 */
+	private static long lastIndexOf(FileChannel channel, byte[] pattern, long from, long to) throws IOException {
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+		for (long blockEnd = to; blockEnd - from >= pattern.length; blockEnd -= BLOCK_SIZE - pattern.length + 1) {
+			long position = Math.max(from, blockEnd - BLOCK_SIZE);
+			int length = readBlock(channel, block, position, blockEnd);
+			for (int i = length - pattern.length; i >= 0; i--) {
+				if (matches(block, i, pattern))
+					return position + i;
+			}
+		}
+		return -1;
+	}
+
+	private static int readBlock(FileChannel channel, ByteBuffer block, long position, long to) throws IOException {
+		block.clear();
+		block.limit((int) Math.min(block.capacity(), to - position));
+		while (block.hasRemaining() && channel.read(block, position + block.position()) > 0) {
+		}
+		return block.position();
+	}
+
+	private static boolean matches(ByteBuffer block, int index, byte[] pattern) {
+		for (int i = 0; i < pattern.length; i++) {
+			if (block.get(index + i) != pattern[i])
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,189 @@
+package de.upb.recalys.control;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import de.upb.recalys.model.RCSGraph;
+
+/**
+ * This class watches a results file or a directory of results files while an
+ * experiment in ReCaPo is still running. The sessions that are already in the
+ * files are read first, afterwards only the sessions that were appended to a
+ * file and the files that were added to the directory are read. All changes
+ * within {@link #COALESCE_INTERVAL} milliseconds are read together and handed
+ * to ReCaLys as one import, so the analysis and the GUI are updated at most
+ * once per interval.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+class ResultsWatcher implements Runnable {
+
+	/** The time in milliseconds in which changes of the files are collected. */
+	static final long COALESCE_INTERVAL = 1000;
+
+	private final ReCaLys recalys;
+	private final RCSGraph graph;
+	private final File directory;
+	private final boolean folder;
+	private final WatchService watchService;
+	private final Thread thread;
+
+	/* the watched files in the order they were found */
+	private final LinkedHashMap<String, ResultsTail> tails = new LinkedHashMap<String, ResultsTail>();
+
+	/**
+	 * Constructor: Creates a new watcher of a results file or a directory. The
+	 * watcher is not started yet.
+	 *
+	 * @param recalys
+	 *            the ReCaLys-object the new sessions are handed to
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param fileOrDirectory
+	 *            the results file or the directory with the results files
+	 * @throws IOException
+	 *             if the directory cannot be watched
+	 */
+	ResultsWatcher(ReCaLys recalys, RCSGraph graph, File fileOrDirectory) throws IOException {
+		this.recalys = recalys;
+		this.graph = graph;
+		folder = fileOrDirectory.isDirectory();
+		directory = folder ? fileOrDirectory : fileOrDirectory.getAbsoluteFile().getParentFile();
+
+		watchService = directory.toPath().getFileSystem().newWatchService();
+		directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+		if (folder) {
+			File[] files = directory.listFiles(new FileFilter() {
+
+				public boolean accept(File file) {
+					return file.isFile() && isResultsFile(file.getName());
+				}
+			});
+			Arrays.sort(files);
+			for (File file : files) {
+				addTail(file);
+			}
+		} else {
+			addTail(fileOrDirectory);
+		}
+
+		thread = new Thread(this, "ReCaLys-Live");
+		thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts watching.
+	 */
+	void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops watching. Sessions that are read at the moment are not handed to
+	 * ReCaLys anymore.
+	 */
+	void stop() {
+		thread.interrupt();
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			Logger.getLogger(ResultsWatcher.class.getName()).log(Level.WARNING, null, e);
+		}
+	}
+
+	/**
+	 * Returns the watched file or directory.
+	 *
+	 * @return the file or directory
+	 */
+	File getWatchedFile() {
+		return folder ? directory : tails.values().iterator().next().getFile();
+	}
+
+	@Override
+	public void run() {
+		try {
+			readNewSessions();
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watchService.take();
+				// a file is usually written in several steps
+				Thread.sleep(COALESCE_INTERVAL);
+				boolean changed = false;
+				do {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW) {
+							changed = true;
+							continue;
+						}
+						String name = ((Path) event.context()).toString();
+						if (tails.containsKey(name))
+							changed = true;
+						else if (folder && isResultsFile(name)) {
+							addTail(new File(directory, name));
+							changed = true;
+						}
+					}
+					key.reset();
+				} while ((key = watchService.poll()) != null);
+				if (changed)
+					readNewSessions();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// live mode was stopped
+		}
+	}
+
+	/**
+	 * Reads the new sessions of all files and hands them to ReCaLys.
+	 */
+	private void readNewSessions() {
+		ImportProgress progress = new ImportProgress(0, null);
+		ResultsImport newResults = null;
+		for (ResultsTail tail : new ArrayList<ResultsTail>(tails.values())) {
+			try {
+				ResultsImport part = tail.readNewSessions(graph, progress);
+				if (part == null)
+					continue;
+				if (newResults == null)
+					newResults = part;
+				else
+					newResults.add(part, false);
+			} catch (ParserConfigurationException | SAXException | IOException e) {
+				if (Thread.currentThread().isInterrupted())
+					return;
+				Logger.getLogger(ResultsWatcher.class.getName()).log(Level.WARNING, tail.getFile().getName(), e);
+			}
+		}
+		if (newResults != null && !Thread.currentThread().isInterrupted())
+			recalys.publishLiveResults(this, newResults);
+	}
+
+	private void addTail(File file) {
+		tails.put(file.getName(), new ResultsTail(file));
+	}
+
+	private static boolean isResultsFile(String name) {
+		return name.toLowerCase().endsWith(".xml");
+	}
+}
@@ -0,0 +1,260 @@
+package de.upb.recalys.helper;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * This class opens files that may be compressed, so exports of ReCaPo can be
+ * imported without unpacking them first. The compression is recognized by the
+ * first bytes of the file: gzip, zip (the first file in the archive is read) and
+ * zlib are supported, any other file is read as it is.
+ *
+ * <p>
+ * A compressed file is decompressed on a reader thread of its own that hands
+ * the data in chunks of {@value #CHUNK_SIZE} bytes to the reading thread. At
+ * most {@value #QUEUED_CHUNKS} chunks wait for the reading thread, so
+ * decompressing and parsing overlap without holding the whole file in memory.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+public final class CompressedInput {
+
+	/** The size of the chunks that are handed to the reading thread. */
+	public static final int CHUNK_SIZE = 64 * 1024;
+
+	/** The number of decompressed chunks that may wait for the reading thread. */
+	public static final int QUEUED_CHUNKS = 16;
+
+	private static final int GZIP = 1, ZIP = 2, ZLIB = 3;
+
+	private CompressedInput() {
+	}
+
+	/**
+	 * Checks if a file is compressed.
+	 *
+	 * @param file
+	 *            the file
+	 * @return true, if the file is compressed in a supported format
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static boolean isCompressed(File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] magic = new byte[4];
+			int length = 0, read;
+			while (length < magic.length && (read = in.read(magic, length, magic.length - length)) > 0) {
+				length += read;
+			}
+			return format(magic, length) != 0;
+		}
+	}
+
+	/**
+	 * Opens a file that may be compressed.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the decompressed content of the file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static InputStream open(File file) throws IOException {
+		return open(new FileInputStream(file));
+	}
+
+	/**
+	 * Opens a stream that may be compressed. The given stream is read on the
+	 * reader thread, if it is compressed, and is closed with the returned stream.
+	 *
+	 * @param in
+	 *            the stream
+	 * @return the decompressed content of the stream
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	public static InputStream open(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, CHUNK_SIZE);
+		try {
+			byte[] magic = new byte[4];
+			buffered.mark(magic.length);
+			int length = 0, read;
+			while (length < magic.length && (read = buffered.read(magic, length, magic.length - length)) > 0) {
+				length += read;
+			}
+			buffered.reset();
+
+			switch (format(magic, length)) {
+			case GZIP:
+				return new DecompressingStream(new GZIPInputStream(buffered, CHUNK_SIZE));
+			case ZIP:
+				ZipInputStream zip = new ZipInputStream(buffered);
+				ZipEntry entry = zip.getNextEntry();
+				while (entry != null && entry.isDirectory()) {
+					entry = zip.getNextEntry();
+				}
+				if (entry == null)
+					throw new IOException("The archive contains no file");
+				return new DecompressingStream(zip);
+			case ZLIB:
+				return new DecompressingStream(new InflaterInputStream(buffered));
+			default:
+				return buffered;
+			}
+		} catch (IOException | RuntimeException e) {
+			buffered.close();
+			throw e;
+		}
+	}
+
+	private static int format(byte[] magic, int length) {
+		if (length < 2)
+			return 0;
+		int b0 = magic[0] & 0xFF, b1 = magic[1] & 0xFF;
+		if (b0 == 0x1F && b1 == 0x8B)
+			return GZIP;
+		if (length == 4 && b0 == 'P' && b1 == 'K' && magic[2] == 3 && magic[3] == 4)
+			return ZIP;
+		// deflate with a valid header checksum
+		if ((b0 & 0x0F) == 8 && (b0 >> 4) <= 7 && (b0 << 8 | b1) % 31 == 0)
+			return ZLIB;
+		return 0;
+	}
+
+	/**
+	 * A stream that reads the decompressed data from the reader thread.
+	 */
+	private static class DecompressingStream extends InputStream implements Runnable {
+
+		/* marks the end of the data */
+		private static final byte[] END = new byte[0];
+
+		private final InputStream source;
+		private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(QUEUED_CHUNKS);
+		private final Thread reader;
+		private volatile IOException error;
+
+		private byte[] chunk = new byte[0];
+		private int position;
+		private boolean closed;
+
+		DecompressingStream(InputStream source) {
+			this.source = source;
+			reader = new Thread(this, "ReCaLys-Decompress");
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		/**
+		 * Decompresses the source on the reader thread.
+		 */
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					byte[] buffer = new byte[CHUNK_SIZE];
+					int length = 0, read = 0;
+					while (length < buffer.length && (read = source.read(buffer, length, buffer.length - length)) > 0) {
+						length += read;
+					}
+					if (length > 0)
+						chunks.put(length == buffer.length ? buffer : Arrays.copyOf(buffer, length));
+					if (read < 0)
+						break;
+				}
+			} catch (IOException e) {
+				error = e;
+			} catch (RuntimeException e) {
+				error = new IOException(e);
+			} catch (InterruptedException e) {
+				// the stream was closed
+				return;
+			} finally {
+				try {
+					source.close();
+				} catch (IOException e) {
+					if (error == null)
+						error = e;
+				}
+			}
+			try {
+				chunks.put(END);
+			} catch (InterruptedException e) {
+				// the stream was closed
+			}
+		}
+
+		/**
+		 * Takes the next chunk from the reader thread.
+		 *
+		 * @return false, if there is no more data
+		 */
+		private boolean nextChunk() throws IOException {
+			if (chunk == END)
+				return false;
+			if (closed)
+				throw new IOException("The stream is closed");
+			if (Thread.currentThread().isInterrupted())
+				throw new InterruptedIOException("Reading was interrupted");
+			try {
+				chunk = chunks.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Reading was interrupted");
+			}
+			position = 0;
+			if (chunk == END) {
+				if (error != null)
+					throw error;
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (position == chunk.length && !nextChunk())
+				return -1;
+			return chunk[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (position == chunk.length && !nextChunk())
+				return -1;
+			int read = Math.min(len, chunk.length - position);
+			System.arraycopy(chunk, position, b, off, read);
+			position += read;
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return chunk.length - position;
+		}
+
+		@Override
+		public void close() {
+			if (closed)
+				return;
+			closed = true;
+			// stops the reader thread, which closes the source
+			reader.interrupt();
+			chunks.clear();
+		}
+	}
+}
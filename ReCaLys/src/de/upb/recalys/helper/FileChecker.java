@@ -1,8 +1,7 @@
 package de.upb.recalys.helper;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -14,10 +13,9 @@ import java.util.Scanner;
  */
 public class FileChecker {
 
-	private static Scanner scan;
-
 	/**
-	 * Check if the root of the xml file is the parameter {@code root}.
+	 * Check if the root of the xml file is the parameter {@code root}. The file may
+	 * be compressed (see {@link CompressedInput}).
 	 *
 	 * @param xmlFile
 	 *            the XML-File to check
@@ -28,10 +26,7 @@ public class FileChecker {
 	 */
 	public static boolean checkRoot(File xmlFile, String root) {
 		boolean foundHeader = false;
-		FileInputStream fis;
-		try {
-			fis = new FileInputStream(xmlFile);
-			scan = new Scanner(fis);
+		try (Scanner scan = new Scanner(CompressedInput.open(xmlFile))) {
 			while (scan.hasNext()) {
 				String line = scan.nextLine().trim();
 				if (!foundHeader && line.startsWith("<?xml version='1.0'?>")) {
@@ -45,7 +40,7 @@ public class FileChecker {
 					return true;
 				}
 			}
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 			return false;
 		}
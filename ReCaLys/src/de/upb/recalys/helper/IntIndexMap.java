@@ -0,0 +1,153 @@
+package de.upb.recalys.helper;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The Class IntIndexMap implements a map from arbitrary int keys to
+ * non-negative int values with open addressing. It is used to find the dense
+ * index of a node by its ReCaPo itemID without boxing the key on every lookup.
+ */
+public class IntIndexMap implements Serializable {
+
+	private static final long serialVersionUID = -4420913254086130215L;
+
+	/** The value that is returned for keys that are not in the map. */
+	public static final int NOT_FOUND = -1;
+
+	private int[] keys;
+	private int[] values;
+	private int size;
+	private int mask;
+
+	/**
+	 * Instantiates a new empty map.
+	 */
+	public IntIndexMap() {
+		this(16);
+	}
+
+	/**
+	 * Instantiates a new empty map.
+	 *
+	 * @param expectedSize
+	 *            the number of keys the map should hold without growing
+	 */
+	public IntIndexMap(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * Gets the value for a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the value or {@link #NOT_FOUND}, if the key is not in the map
+	 */
+	public int get(int key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != NOT_FOUND) {
+			if (keys[slot] == key)
+				return values[slot];
+			slot = (slot + 1) & mask;
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Checks if the map contains a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return true, if the key is in the map
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != NOT_FOUND;
+	}
+
+	/**
+	 * Sets the value for a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value. It must not be negative.
+	 * @return the previous value of the key or {@link #NOT_FOUND}, if the key was
+	 *         not in the map
+	 */
+	public int put(int key, int value) {
+		if (value < 0)
+			throw new IllegalArgumentException("Negative value: " + value);
+		int slot = hash(key) & mask;
+		while (values[slot] != NOT_FOUND) {
+			if (keys[slot] == key) {
+				int previous = values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > keys.length / 2)
+			rehash(keys.length * 2);
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Returns the number of keys in the map.
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all keys from the map.
+	 */
+	public void clear() {
+		Arrays.fill(values, NOT_FOUND);
+		size = 0;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != NOT_FOUND) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (values[slot] != NOT_FOUND) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, NOT_FOUND);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Spreads the bits of a key, so that consecutive ids do not end up in long
+	 * runs of occupied slots.
+	 */
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = 16;
+		while (capacity < 2L * expectedSize + 1 && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
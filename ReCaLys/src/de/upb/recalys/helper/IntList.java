@@ -0,0 +1,123 @@
+package de.upb.recalys.helper;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The Class IntList implements a growable list of primitive ints. It is used
+ * instead of an {@code ArrayList<Integer>} where many values have to be stored
+ * without boxing every single one of them.
+ */
+public class IntList implements Serializable {
+
+	private static final long serialVersionUID = 2318546045409021597L;
+	private int[] values;
+	private int size;
+
+	/**
+	 * Instantiates a new empty list.
+	 */
+	public IntList() {
+		this(16);
+	}
+
+	/**
+	 * Instantiates a new empty list.
+	 *
+	 * @param capacity
+	 *            the initial capacity
+	 */
+	public IntList(int capacity) {
+		values = new int[Math.max(1, capacity)];
+		size = 0;
+	}
+
+	/**
+	 * Appends a value to the end of the list.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void add(int value) {
+		if (size == values.length)
+			values = Arrays.copyOf(values, size * 2);
+		values[size++] = value;
+	}
+
+	/**
+	 * Gets the value at a position.
+	 *
+	 * @param index
+	 *            the position
+	 * @return the value
+	 */
+	public int get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return values[index];
+	}
+
+	/**
+	 * Sets the value at a position.
+	 *
+	 * @param index
+	 *            the position
+	 * @param value
+	 *            the new value
+	 */
+	public void set(int index, int value) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		values[index] = value;
+	}
+
+	/**
+	 * Removes the last value and returns it.
+	 *
+	 * @return the removed value
+	 */
+	public int removeLast() {
+		if (size == 0)
+			throw new IndexOutOfBoundsException("List is empty");
+		return values[--size];
+	}
+
+	/**
+	 * Returns the number of values in the list.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the list is empty.
+	 *
+	 * @return true, if there are no values in the list
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all values from the list.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns a copy of the values as an array.
+	 *
+	 * @return the values
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+}
@@ -0,0 +1,215 @@
+package de.upb.recalys.model;
+
+import java.io.Serializable;
+
+import de.upb.recalys.helper.IntList;
+
+/**
+ * This class defines an immutable adjacency structure in compressed sparse row
+ * format. The neighbours of the node with the dense index {@code i} are stored
+ * in {@code targets} from position {@code offsets[i]} to
+ * {@code offsets[i + 1] - 1}, so all neighbour lists of a graph share two flat
+ * int arrays.
+ */
+public final class Adjacency implements Serializable {
+
+	private static final long serialVersionUID = -5410349268135009671L;
+	private final int[] offsets;
+	private final int[] targets;
+
+	/**
+	 * Constructor: Creates a new adjacency from its arrays.
+	 *
+	 * @param offsets
+	 *            the offsets of the neighbour lists, one entry more than there
+	 *            are nodes
+	 * @param targets
+	 *            the indices of the neighbours of all nodes
+	 */
+	Adjacency(int[] offsets, int[] targets) {
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	/**
+	 * Builds an adjacency from a list of edges. The neighbours of a node keep the
+	 * order in which their edges appear in the list.
+	 *
+	 * @param size
+	 *            the number of nodes
+	 * @param sources
+	 *            the indices of the source nodes of the edges
+	 * @param targets
+	 *            the indices of the target nodes of the edges
+	 * @return the adjacency
+	 */
+	static Adjacency build(int size, IntList sources, IntList targets) {
+		int[] offsets = new int[size + 1];
+		for (int i = 0; i < sources.size(); i++) {
+			offsets[sources.get(i) + 1]++;
+		}
+		for (int i = 0; i < size; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		int[] next = new int[size];
+		System.arraycopy(offsets, 0, next, 0, size);
+		int[] neighbours = new int[sources.size()];
+		for (int i = 0; i < sources.size(); i++) {
+			neighbours[next[sources.get(i)]++] = targets.get(i);
+		}
+		return new Adjacency(offsets, neighbours);
+	}
+
+	/**
+	 * Returns a copy of this adjacency with an additional edge. The new
+	 * neighbour is added after the other neighbours of the source.
+	 *
+	 * @param source
+	 *            the index of the source node
+	 * @param target
+	 *            the index of the target node
+	 * @return the new adjacency
+	 */
+	Adjacency withEdge(int source, int target) {
+		int size = size();
+		int position = offsets[source + 1];
+		int[] newOffsets = new int[size + 1];
+		System.arraycopy(offsets, 0, newOffsets, 0, source + 1);
+		for (int i = source + 1; i <= size; i++) {
+			newOffsets[i] = offsets[i] + 1;
+		}
+		int[] newTargets = new int[targets.length + 1];
+		System.arraycopy(targets, 0, newTargets, 0, position);
+		newTargets[position] = target;
+		System.arraycopy(targets, position, newTargets, position + 1, targets.length - position);
+		return new Adjacency(newOffsets, newTargets);
+	}
+
+	/**
+	 * Returns a copy of this adjacency without an edge.
+	 *
+	 * @param source
+	 *            the index of the source node
+	 * @param target
+	 *            the index of the target node
+	 * @return the new adjacency or this adjacency, if it has no such edge
+	 */
+	Adjacency withoutEdge(int source, int target) {
+		int position = -1;
+		for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+			if (targets[i] == target) {
+				position = i;
+				break;
+			}
+		}
+		if (position == -1)
+			return this;
+		int size = size();
+		int[] newOffsets = new int[size + 1];
+		System.arraycopy(offsets, 0, newOffsets, 0, source + 1);
+		for (int i = source + 1; i <= size; i++) {
+			newOffsets[i] = offsets[i] - 1;
+		}
+		int[] newTargets = new int[targets.length - 1];
+		System.arraycopy(targets, 0, newTargets, 0, position);
+		System.arraycopy(targets, position + 1, newTargets, position, targets.length - position - 1);
+		return new Adjacency(newOffsets, newTargets);
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 *
+	 * @return number of nodes
+	 */
+	public int size() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Returns the number of edges.
+	 *
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the number of neighbours of a node.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return number of neighbours
+	 */
+	public int degree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * Returns the position of the first neighbour of a node.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return position in the target array
+	 */
+	public int start(int node) {
+		return offsets[node];
+	}
+
+	/**
+	 * Returns the position after the last neighbour of a node.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return position in the target array
+	 */
+	public int end(int node) {
+		return offsets[node + 1];
+	}
+
+	/**
+	 * Returns the neighbour at a position.
+	 *
+	 * @param position
+	 *            the position in the target array
+	 * @return the index of the neighbour
+	 */
+	public int target(int position) {
+		return targets[position];
+	}
+
+	/**
+	 * Checks if there is an edge between two nodes.
+	 *
+	 * @param node
+	 *            the index of the source node
+	 * @param neighbour
+	 *            the index of the target node
+	 * @return true, if the target is a neighbour of the source
+	 */
+	public boolean contains(int node, int neighbour) {
+		for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+			if (targets[i] == neighbour)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the offset array. It must not be modified.
+	 *
+	 * @return offsets
+	 */
+	int[] offsets() {
+		return offsets;
+	}
+
+	/**
+	 * Returns the target array. It must not be modified.
+	 *
+	 * @return targets
+	 */
+	int[] targets() {
+		return targets;
+	}
+}
@@ -0,0 +1,157 @@
+package de.upb.recalys.model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class tracks the progress of an analysis of an experiment. An analysis
+ * runs in three phases: the paths of the tasks are analysed, the badlist is
+ * computed and the hotlist is computed. For every phase the number of steps
+ * that are done is counted. The progress is published to a {@link Listener} at
+ * most once every {@link #PUBLISH_INTERVAL} milliseconds. An analysis can be
+ * cancelled through {@link #cancel()}, it stops at its next step.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+public class AnalysisProgress {
+
+	/** The minimal time between two published events in milliseconds. */
+	public static final long PUBLISH_INTERVAL = 100;
+
+	/** The phase in which the paths of the tasks are analysed. */
+	public static final int PATHS = 0;
+
+	/** The phase in which the badlist is computed. */
+	public static final int BAD_LIST = 1;
+
+	/** The phase in which the hotlist is computed. */
+	public static final int HOT_LIST = 2;
+
+	/**
+	 * A listener that is informed about the progress of an analysis. It is
+	 * called on the threads that run the analysis.
+	 */
+	public interface Listener {
+
+		/**
+		 * Is called when the progress of an analysis has changed.
+		 *
+		 * @param progress
+		 *            the progress
+		 */
+		void progressChanged(AnalysisProgress progress);
+	}
+
+	private final Listener listener;
+	private volatile int phase = PATHS;
+	private volatile int total;
+	private final AtomicInteger done = new AtomicInteger();
+	private final AtomicLong lastPublished;
+	private volatile boolean cancelled;
+
+	/**
+	 * Constructor: Creates a new progress for an analysis.
+	 *
+	 * @param listener
+	 *            the listener that is informed about the progress or null
+	 */
+	public AnalysisProgress(Listener listener) {
+		this.listener = listener;
+		lastPublished = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Begins a new phase of the analysis.
+	 *
+	 * @param phase
+	 *            the phase
+	 * @param total
+	 *            the number of steps of the phase
+	 */
+	void beginPhase(int phase, int total) {
+		done.set(0);
+		this.total = total;
+		this.phase = phase;
+		if (listener != null)
+			listener.progressChanged(this);
+	}
+
+	/**
+	 * Counts a step of the current phase.
+	 */
+	void step() {
+		done.incrementAndGet();
+		publishIfDue();
+	}
+
+	private void publishIfDue() {
+		if (listener == null)
+			return;
+		long now = System.nanoTime();
+		long last = lastPublished.get();
+		// only the thread that moves the time of the last event publishes
+		if (now - last >= PUBLISH_INTERVAL * 1000000L && lastPublished.compareAndSet(last, now)) {
+			listener.progressChanged(this);
+		}
+	}
+
+	/**
+	 * Checks if the analysis shall stop.
+	 *
+	 * @throws CancellationException
+	 *             if the analysis was cancelled or the analysing thread was
+	 *             interrupted
+	 */
+	void checkCancelled() {
+		if (cancelled)
+			throw new CancellationException("The analysis was cancelled");
+		if (Thread.currentThread().isInterrupted())
+			throw new CancellationException("The analysis was interrupted");
+	}
+
+	/**
+	 * Cancels the analysis. The analysis stops at its next step, the current
+	 * analysis of the experiment is kept.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Checks if the analysis was cancelled.
+	 *
+	 * @return true, if the analysis was cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns the current phase of the analysis.
+	 *
+	 * @return {@link #PATHS}, {@link #BAD_LIST} or {@link #HOT_LIST}
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Returns the number of steps of the current phase that are done.
+	 *
+	 * @return steps done
+	 */
+	public int getDone() {
+		return done.get();
+	}
+
+	/**
+	 * Returns the number of steps of the current phase.
+	 *
+	 * @return total steps
+	 */
+	public int getTotal() {
+		return total;
+	}
+}
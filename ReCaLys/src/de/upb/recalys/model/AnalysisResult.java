@@ -0,0 +1,790 @@
+package de.upb.recalys.model;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import de.upb.recalys.helper.IntList;
+
+/**
+ * This class holds the analysis of an experiment on a graph: the visits,
+ * ratings and latencies of the nodes, the detections of systematic searching
+ * and the solution rates of the tasks. All values are stored in primitive
+ * arrays indexed by the dense indices of the nodes, the ids of the tasks and
+ * the numbers of the paths in their {@link PathStore}.
+ *
+ * <p>
+ * The graph is only read by an analysis, so several analyses, e.g. of other
+ * results or with other parameters, can be computed on the same graph at the
+ * same time, as long as the graph is not edited meanwhile. The nodes, paths
+ * and tasks show the analysis that is set as the current analysis of their
+ * graph, see {@link RCSGraph#setAnalysis(AnalysisResult)}.
+ *
+ * <p>
+ * An analysis does not change after it was computed. Further paths or other
+ * parameters are analysed into a copy by
+ * {@link #update(List, int, double, double, AnalysisProgress)}, so an analysis
+ * that is shown can be replaced by a newer one at once.
+ *
+ * <p>
+ * An analysis runs in stages: the nodes on the optimal paths of the tasks and
+ * the hotlist depend only on the graph and the tasks. The positions at which
+ * systematic searching begins depend on the parameters of its detection. The
+ * visits, DistRatings and latencies of the nodes on a path depend on that
+ * position, the latency weights and the badlist on the visits. An update only
+ * computes the stages again whose input has changed.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+public class AnalysisResult {
+
+	/* marks a path without systematic searching */
+	private static final int NO_DETECTION = -1;
+
+	private final RCSGraph graph;
+	private final int nodeCount;
+	private final int timeToThink;
+	private final double maxProblemRate;
+	private final double maxReturnRate;
+	private final int nodesToInspect;
+	private final int[] minimalLatencies;
+
+	/* by node */
+	private final boolean[] targets;
+	private final int[] visits;
+	private final int[] visitsOnOptimalPaths;
+	private final int[] distRatings;
+	private final int[] latencyWeights;
+
+	/*
+	 * by task and node; the latencies of a task are grouped by node: the
+	 * latencies of node n are latenciesPerTask[t][latencyOffsetsPerTask[t][n]]
+	 * to latenciesPerTask[t][latencyOffsetsPerTask[t][n + 1] - 1]
+	 */
+	private int[][] distRatingsPerTask = new int[0][];
+	private int[][] latencyOffsetsPerTask = new int[0][];
+	private int[][] latenciesPerTask = new int[0][];
+	private double[] solutionRates = new double[0];
+	private int[] invalidPaths = new int[0];
+
+	/* by task: the number of paths that were analysed */
+	private int[] analysedPathCounts = new int[0];
+
+	/* by path of the store */
+	private PathStore store;
+	private int[] beginsOfSystematicSearching = new int[0];
+
+	private final StringBuilder systematicSearchingLog;
+
+	private LinkedList<RCSNode> badList;
+	@SuppressWarnings("rawtypes")
+	private LinkedList[] hotList;
+
+	/**
+	 * Constructor: Creates a new empty analysis on a graph. The minimal latencies
+	 * and the number of nodes to inspect are computed for this analysis.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param timeToThink
+	 *            the time a user will at least need to think at a node
+	 * @param maxProblemRate
+	 *            the max problem rate of the detection of systematic searching
+	 * @param maxReturnRate
+	 *            the max return rate of the detection of systematic searching
+	 */
+	private AnalysisResult(RCSGraph graph, int timeToThink, double maxProblemRate, double maxReturnRate) {
+		this.graph = graph;
+		this.timeToThink = timeToThink;
+		this.maxProblemRate = maxProblemRate;
+		this.maxReturnRate = maxReturnRate;
+		nodeCount = graph.getNodeCount();
+		nodesToInspect = graph.computeNodesToInspect();
+		minimalLatencies = graph.minimalLatenciesFor(timeToThink);
+		targets = new boolean[nodeCount];
+		visits = new int[nodeCount];
+		visitsOnOptimalPaths = new int[nodeCount];
+		distRatings = new int[nodeCount];
+		latencyWeights = new int[nodeCount];
+		systematicSearchingLog = new StringBuilder();
+	}
+
+	/**
+	 * Constructor: Creates a copy of an analysis that further paths can be
+	 * analysed into. The arrays that are changed by an analysis are copied.
+	 *
+	 * @param analysis
+	 *            the analysis
+	 * @param timeToThink
+	 *            the time a user will at least need to think at a node
+	 * @param maxProblemRate
+	 *            the max problem rate of the detection of systematic searching
+	 * @param maxReturnRate
+	 *            the max return rate of the detection of systematic searching
+	 */
+	private AnalysisResult(AnalysisResult analysis, int timeToThink, double maxProblemRate, double maxReturnRate) {
+		graph = analysis.graph;
+		this.timeToThink = timeToThink;
+		this.maxProblemRate = maxProblemRate;
+		this.maxReturnRate = maxReturnRate;
+		nodeCount = analysis.nodeCount;
+		nodesToInspect = analysis.nodesToInspect;
+		minimalLatencies = timeToThink == analysis.timeToThink ? analysis.minimalLatencies
+				: graph.minimalLatenciesFor(timeToThink);
+		targets = analysis.targets.clone();
+		visits = analysis.visits.clone();
+		visitsOnOptimalPaths = analysis.visitsOnOptimalPaths.clone();
+		distRatings = analysis.distRatings.clone();
+		latencyWeights = analysis.latencyWeights.clone();
+		// the arrays of the tasks are replaced, not changed, by an analysis
+		distRatingsPerTask = analysis.distRatingsPerTask.clone();
+		latencyOffsetsPerTask = analysis.latencyOffsetsPerTask.clone();
+		latenciesPerTask = analysis.latenciesPerTask.clone();
+		solutionRates = analysis.solutionRates.clone();
+		invalidPaths = analysis.invalidPaths.clone();
+		analysedPathCounts = analysis.analysedPathCounts;
+		store = analysis.store;
+		beginsOfSystematicSearching = analysis.beginsOfSystematicSearching.clone();
+		systematicSearchingLog = new StringBuilder(analysis.systematicSearchingLog);
+		badList = analysis.badList;
+		hotList = analysis.hotList;
+	}
+
+	/**
+	 * Analyses the paths of the tasks of an experiment. The tasks are analysed
+	 * in parallel, each into a {@link TaskAnalysis} of its own, which are then
+	 * added to the analysis in the order of the tasks. So the result is the same
+	 * as if the tasks were analysed one after another.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 * @param tasks
+	 *            the tasks of the experiment
+	 * @param timeToThink
+	 *            the time a user will at least need to think at a node
+	 * @param maxProblemRate
+	 *            the max problem rate of the detection of systematic searching
+	 * @param maxReturnRate
+	 *            the max return rate of the detection of systematic searching
+	 * @param progress
+	 *            the progress of the analysis
+	 * @return the analysis
+	 * @throws java.util.concurrent.CancellationException
+	 *             if the analysis was cancelled
+	 */
+	public static AnalysisResult analyse(RCSGraph graph, List<RCSTask> tasks, int timeToThink,
+			double maxProblemRate, double maxReturnRate, AnalysisProgress progress) {
+		AnalysisResult analysis = new AnalysisResult(graph, timeToThink, maxProblemRate, maxReturnRate);
+		analysis.compute(tasks, null, progress);
+		return analysis;
+	}
+
+	/**
+	 * Analyses the tasks of the experiment of this analysis again, e.g. after
+	 * paths were appended or the parameters were changed. This analysis is not
+	 * changed, the stages that do not depend on the changes are taken from it:
+	 * <ul>
+	 * <li>If the parameters are the same, only the appended paths and tasks are
+	 * analysed. The detections of the appended paths follow the older ones in
+	 * the log of systematic searching.</li>
+	 * <li>Otherwise systematic searching is detected again on all paths. Only
+	 * the tasks that have a path on which systematic searching begins at another
+	 * position are aggregated again, the nodes on optimal paths are kept.</li>
+	 * </ul>
+	 * The badlist is only computed again if the visits of a node have changed,
+	 * the hotlist only if a task was added.
+	 *
+	 * @param tasks
+	 *            the tasks of the experiment
+	 * @param timeToThink
+	 *            the time a user will at least need to think at a node
+	 * @param maxProblemRate
+	 *            the max problem rate of the detection of systematic searching
+	 * @param maxReturnRate
+	 *            the max return rate of the detection of systematic searching
+	 * @param progress
+	 *            the progress of the analysis
+	 * @return the analysis of all paths
+	 * @throws java.util.concurrent.CancellationException
+	 *             if the analysis was cancelled
+	 */
+	public AnalysisResult update(List<RCSTask> tasks, int timeToThink, double maxProblemRate, double maxReturnRate,
+			AnalysisProgress progress) {
+		AnalysisResult analysis = new AnalysisResult(this, timeToThink, maxProblemRate, maxReturnRate);
+		if (timeToThink == this.timeToThink && maxProblemRate == this.maxProblemRate
+				&& maxReturnRate == this.maxReturnRate) {
+			analysis.compute(tasks, null, progress);
+		} else {
+			// all detections are run again
+			Arrays.fill(analysis.beginsOfSystematicSearching, NO_DETECTION);
+			analysis.systematicSearchingLog.setLength(0);
+			analysis.compute(tasks, this, progress);
+		}
+		return analysis;
+	}
+
+	/**
+	 * Analyses the paths of the tasks and computes the badlist and the hotlist.
+	 * The paths that were analysed before are skipped, unless the detection of
+	 * systematic searching is run again.
+	 *
+	 * @param tasks
+	 *            the tasks of the experiment
+	 * @param previous
+	 *            null or the analysis with other parameters this analysis was
+	 *            copied from, if systematic searching is detected again
+	 * @param progress
+	 *            the progress of the analysis
+	 */
+	private void compute(List<RCSTask> tasks, AnalysisResult previous, AnalysisProgress progress) {
+		growTasks(tasks.size());
+		int pathCount = 0;
+		for (int i = 0; i < tasks.size(); i++) {
+			RCSTask task = tasks.get(i);
+			targets[task.getTarget().getIndex()] = true;
+			pathCount += task.getPaths().size();
+			if (previous == null && i < analysedPathCounts.length)
+				pathCount -= analysedPathCounts[i];
+		}
+
+		progress.beginPhase(AnalysisProgress.PATHS, pathCount);
+		TaskAnalysis[] analyses = new TaskAnalysis[tasks.size()];
+		ForkJoinPool.commonPool().invoke(
+				new TaskAnalysis.Computation(this, previous, tasks, analysedPathCounts, analyses, progress));
+		boolean visitsChanged = false;
+		boolean tasksAdded = false;
+		for (TaskAnalysis analysis : analyses) {
+			if (analysis.replacesVisits)
+				removeVisits(analysis.task.getID());
+			add(analysis);
+			visitsChanged |= analysis.replacesVisits || analysis.visits.size() > 0;
+			tasksAdded |= analysis.complete;
+		}
+
+		analysedPathCounts = new int[tasks.size()];
+		for (int i = 0; i < tasks.size(); i++) {
+			analysedPathCounts[i] = tasks.get(i).getPaths().size();
+		}
+		if (visitsChanged) {
+			for (int node = 0; node < nodeCount; node++) {
+				latencyWeights[node] = computeLatencyWeight(node);
+			}
+		}
+		for (RCSTask task : tasks) {
+			int successfullPaths = 0;
+			int invalid = 0;
+			for (RCSPath path : task.getPaths()) {
+				if (path.isSuccessfull(this))
+					successfullPaths++;
+				if (isInvalid(path))
+					invalid++;
+			}
+			solutionRates[task.getID()] = task.getPaths().size() > 0
+					? successfullPaths / (double) task.getPaths().size() : 0;
+			invalidPaths[task.getID()] = invalid;
+		}
+
+		if (badList == null || visitsChanged || tasksAdded)
+			badList = computeBadList(progress);
+		if (hotList == null || tasksAdded)
+			hotList = computeHotList(progress);
+	}
+
+	private void growTasks(int countTasks) {
+		int oldCount = distRatingsPerTask.length;
+		if (countTasks <= oldCount)
+			return;
+		distRatingsPerTask = Arrays.copyOf(distRatingsPerTask, countTasks);
+		latencyOffsetsPerTask = Arrays.copyOf(latencyOffsetsPerTask, countTasks);
+		latenciesPerTask = Arrays.copyOf(latenciesPerTask, countTasks);
+		solutionRates = Arrays.copyOf(solutionRates, countTasks);
+		invalidPaths = Arrays.copyOf(invalidPaths, countTasks);
+		for (int task = oldCount; task < countTasks; task++) {
+			distRatingsPerTask[task] = new int[nodeCount];
+			latencyOffsetsPerTask[task] = new int[nodeCount + 1];
+			latenciesPerTask[task] = new int[0];
+		}
+	}
+
+	/**
+	 * Removes the visits of the paths of a task, so they can be added again.
+	 *
+	 * @param task
+	 *            the id of the task
+	 */
+	private void removeVisits(int task) {
+		int[] offsets = latencyOffsetsPerTask[task];
+		int[] taskDistRatings = distRatingsPerTask[task];
+		for (int node = 0; node < nodeCount; node++) {
+			visits[node] -= offsets[node + 1] - offsets[node];
+			distRatings[node] -= taskDistRatings[node];
+		}
+		distRatingsPerTask[task] = new int[nodeCount];
+		latencyOffsetsPerTask[task] = new int[nodeCount + 1];
+		latenciesPerTask[task] = new int[0];
+	}
+
+	/**
+	 * Adds the analysis of a task.
+	 *
+	 * @param analysis
+	 *            the analysis of a task
+	 */
+	private void add(TaskAnalysis analysis) {
+		int task = analysis.task.getID();
+		for (int i = 0; i < analysis.nodesOnOptimalPaths.size(); i++) {
+			visitsOnOptimalPaths[analysis.nodesOnOptimalPaths.get(i)]++;
+		}
+		if (analysis.visits.size() > 0)
+			addVisits(task, analysis.visits);
+
+		IntList begins = analysis.beginsOfSystematicSearching;
+		if (begins.size() > 0) {
+			store = analysis.task.getPaths().get(0).getStore();
+			if (beginsOfSystematicSearching.length < store.getPathCount()) {
+				int oldLength = beginsOfSystematicSearching.length;
+				beginsOfSystematicSearching = Arrays.copyOf(beginsOfSystematicSearching, store.getPathCount());
+				Arrays.fill(beginsOfSystematicSearching, oldLength, beginsOfSystematicSearching.length,
+						NO_DETECTION);
+			}
+			for (int i = 0; i < begins.size(); i += 2) {
+				beginsOfSystematicSearching[begins.get(i)] = begins.get(i + 1);
+			}
+		}
+		for (String detection : analysis.detections) {
+			systematicSearchingLog.append(detection);
+		}
+	}
+
+	/**
+	 * Adds the visits of the paths of a task. The latencies of the task are
+	 * grouped by node again, the new latencies of a node follow its older ones.
+	 *
+	 * @param task
+	 *            the id of the task
+	 * @param taskVisits
+	 *            the visits: index of the node, value of the DistRating, latency
+	 */
+	private void addVisits(int task, IntList taskVisits) {
+		int[] taskDistRatings = distRatingsPerTask[task].clone();
+		int[] oldOffsets = latencyOffsetsPerTask[task];
+		int[] oldLatencies = latenciesPerTask[task];
+		int[] offsets = new int[nodeCount + 1];
+		for (int i = 0; i < taskVisits.size(); i += 3) {
+			int node = taskVisits.get(i);
+			visits[node]++;
+			distRatings[node] += taskVisits.get(i + 1);
+			taskDistRatings[node] += taskVisits.get(i + 1);
+			offsets[node + 1]++;
+		}
+		for (int node = 0; node < nodeCount; node++) {
+			offsets[node + 1] += offsets[node] + oldOffsets[node + 1] - oldOffsets[node];
+		}
+		int[] latencies = new int[offsets[nodeCount]];
+		int[] next = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			int oldCount = oldOffsets[node + 1] - oldOffsets[node];
+			System.arraycopy(oldLatencies, oldOffsets[node], latencies, offsets[node], oldCount);
+			next[node] = offsets[node] + oldCount;
+		}
+		for (int i = 0; i < taskVisits.size(); i += 3) {
+			latencies[next[taskVisits.get(i)]++] = taskVisits.get(i + 2);
+		}
+		distRatingsPerTask[task] = taskDistRatings;
+		latencyOffsetsPerTask[task] = offsets;
+		latenciesPerTask[task] = latencies;
+	}
+
+	/**
+	 * The median of the latencies of a node in the order of the tasks
+	 */
+	private int computeLatencyWeight(int node) {
+		int size = 0;
+		for (int[] offsets : latencyOffsetsPerTask) {
+			size += offsets[node + 1] - offsets[node];
+		}
+		if (size == 0)
+			return 0;
+		int middle = size / 2;
+		if (size % 2 == 1)
+			return latency(node, middle);
+		else
+			return (latency(node, middle - 1) + latency(node, middle)) / 2;
+	}
+
+	/**
+	 * The latency at a position of the latencies of a node in the order of the
+	 * tasks
+	 */
+	private int latency(int node, int position) {
+		for (int task = 0; task < latencyOffsetsPerTask.length; task++) {
+			int[] offsets = latencyOffsetsPerTask[task];
+			int count = offsets[node + 1] - offsets[node];
+			if (position < count)
+				return latenciesPerTask[task][offsets[node] + position];
+			position -= count;
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * Returns the graph of this analysis.
+	 *
+	 * @return graph
+	 */
+	public RCSGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Returns the time a user will at least need to think at a node, that was
+	 * used for this analysis.
+	 *
+	 * @return time to think in milliseconds
+	 */
+	public int getTimeToThink() {
+		return timeToThink;
+	}
+
+	/**
+	 * Returns the max problem rate of the detection of systematic searching.
+	 *
+	 * @return max problem rate
+	 */
+	public double getMaxProblemRate() {
+		return maxProblemRate;
+	}
+
+	/**
+	 * Returns the max return rate of the detection of systematic searching.
+	 *
+	 * @return max return rate
+	 */
+	public double getMaxReturnRate() {
+		return maxReturnRate;
+	}
+
+	/**
+	 * Returns the number of nodes that are inspected combined by the detection
+	 * of systematic searching.
+	 *
+	 * @return nodes to inspect
+	 */
+	public int getNodesToInspect() {
+		return nodesToInspect;
+	}
+
+	/**
+	 * Returns the minimal latency of a node.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return minimal latency
+	 */
+	int getMinimalLatency(int node) {
+		return minimalLatencies[node];
+	}
+
+	/**
+	 * Returns the number of visits of a node on the paths.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return number of visits
+	 */
+	public int getVisits(int node) {
+		return visits[node];
+	}
+
+	/**
+	 * Returns the number of optimal paths of the tasks a node lies on.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return number of visits on optimal paths
+	 */
+	public int getVisitsOnOptimalPath(int node) {
+		return visitsOnOptimalPaths[node];
+	}
+
+	/**
+	 * Returns the DistRating of a node.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return DistRating
+	 */
+	public int getDistRating(int node) {
+		return distRatings[node];
+	}
+
+	/**
+	 * Returns the malus of a node, i.e. its DistRating weighted by its degree.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return malus
+	 */
+	public int getMalus(int node) {
+		return distRatings[node] * graph.getDegree(node);
+	}
+
+	/**
+	 * Returns the LatencyWeight of a node, the median of its latencies on all
+	 * paths.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return latency-weight
+	 */
+	public int getLatencyWeight(int node) {
+		return latencyWeights[node];
+	}
+
+	/**
+	 * Returns the coverage of a node.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @return coverage
+	 */
+	public double getCoverage(int node) {
+		return (double) visitsOnOptimalPaths[node] / (double) graph.getLeavesCount(node);
+	}
+
+	/**
+	 * Returns the coverage of the experiment, i.e. the coverage of the root.
+	 *
+	 * @return coverage of the experiment
+	 */
+	public double getCoverage() {
+		return getCoverage(graph.getRoot().getIndex());
+	}
+
+	/**
+	 * Returns the DistRating of a node for a task.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @param taskID
+	 *            the id of the task
+	 * @return DistRating or 0, if the task was not analysed
+	 */
+	public int getDistRatingForTask(int node, int taskID) {
+		return taskID < distRatingsPerTask.length ? distRatingsPerTask[taskID][node] : 0;
+	}
+
+	/**
+	 * Returns the LatencyWeight of a node for a task.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @param taskID
+	 *            the id of the task
+	 * @return latency weight or 0, if the task was not analysed
+	 */
+	public double getLatencyWeightForTask(int node, int taskID) {
+		if (taskID >= latencyOffsetsPerTask.length)
+			return 0;
+		int[] offsets = latencyOffsetsPerTask[taskID];
+		int[] latencies = latenciesPerTask[taskID];
+		int size = offsets[node + 1] - offsets[node];
+		if (size == 0)
+			return 0;
+		int middle = offsets[node] + size / 2;
+		if (size % 2 == 1)
+			return latencies[middle];
+		else
+			return (latencies[middle - 1] + latencies[middle]) / 2;
+	}
+
+	/**
+	 * Returns the solution-rate of a task.
+	 *
+	 * @param task
+	 *            the task
+	 * @return solution-rate or 0, if the task was not analysed
+	 */
+	public double getSolutionRate(RCSTask task) {
+		return task.getID() < solutionRates.length ? solutionRates[task.getID()] : 0;
+	}
+
+	/**
+	 * Returns the number of paths of a task that are invalid because of
+	 * systematic searching.
+	 *
+	 * @param task
+	 *            the task
+	 * @return number of invalid paths
+	 */
+	public int getNumberOfInvalidPaths(RCSTask task) {
+		return task.getID() < invalidPaths.length ? invalidPaths[task.getID()] : 0;
+	}
+
+	/**
+	 * Returns if systematic searching was detected on a path.
+	 *
+	 * @param path
+	 *            the path
+	 * @return true, if the path is invalid
+	 */
+	public boolean isInvalid(RCSPath path) {
+		return getBeginOfSystematicSearching(path) != NO_DETECTION;
+	}
+
+	/**
+	 * Returns the position on a path at which systematic searching begins.
+	 *
+	 * @param path
+	 *            the path
+	 * @return position or -1, if there is no systematic searching on the path
+	 */
+	public int getBeginOfSystematicSearching(RCSPath path) {
+		if (path.getStore() != store || path.getNumber() >= beginsOfSystematicSearching.length)
+			return NO_DETECTION;
+		return beginsOfSystematicSearching[path.getNumber()];
+	}
+
+	/**
+	 * Returns the log about the detection of systematic searching
+	 *
+	 * @return systematicSearchingLog
+	 */
+	public String getSystematicSearchingLog() {
+		return systematicSearchingLog.toString();
+	}
+
+	/**
+	 * Returns the badlist. This list includes all nodes in order of their malus
+	 *
+	 * @return badlist
+	 */
+	public LinkedList<RCSNode> getBadList() {
+		return badList;
+	}
+
+	/**
+	 * Returns the HotList: That means a list of all nodes that should be tested in
+	 * a further experiment to increase the coverage by maximum. The nodes in this
+	 * list are ordered to increase the coverage most effectivly.
+	 *
+	 * @return HotList
+	 */
+	@SuppressWarnings("rawtypes")
+	public LinkedList[] getHotList() {
+		return hotList;
+	}
+
+	private LinkedList<RCSNode> computeBadList(AnalysisProgress progress) {
+		progress.beginPhase(AnalysisProgress.BAD_LIST, nodeCount);
+		int[] maluses = new int[nodeCount];
+		for (int index = 0; index < nodeCount; index++) {
+			maluses[index] = getMalus(index);
+		}
+		int maxMalus;
+		int maxLatencyWeight;
+		int indexOfMax;
+		boolean[] listed = new boolean[nodeCount];
+		LinkedList<RCSNode> badList = new LinkedList<RCSNode>();
+		for (int i = 0; i < nodeCount; i++) {
+			progress.checkCancelled();
+			maxMalus = 0;
+			maxLatencyWeight = 0;
+			indexOfMax = -1;
+			for (int index = 0; index < nodeCount; index++) {
+				if (!listed[index] && visitsOnOptimalPaths[index] > 0) {
+					if (maluses[index] > maxMalus) {
+						maxMalus = maluses[index];
+						maxLatencyWeight = latencyWeights[index];
+						indexOfMax = index;
+					} else if (maluses[index] == maxMalus)
+						if (latencyWeights[index] > maxLatencyWeight) {
+							maxMalus = maluses[index];
+							maxLatencyWeight = latencyWeights[index];
+							indexOfMax = index;
+						}
+				}
+			}
+			if (indexOfMax != -1) {
+				listed[indexOfMax] = true;
+				badList.offer(graph.getNodeByIndex(indexOfMax));
+			} else {
+				break;
+			}
+			progress.step();
+		}
+		return badList;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private LinkedList[] computeHotList(AnalysisProgress progress) {
+		LinkedList[] hotList = new LinkedList[2];
+		LinkedList<RCSNode> leaves = new LinkedList<RCSNode>();
+		LinkedList<Double> gains = new LinkedList<Double>();
+		Adjacency levelChildren = graph.getLevelChildAdjacency();
+		int root = graph.getRoot().getIndex();
+
+		/* get the number of all leaves that are not already targets */
+		int numberOfLeaves = graph.getLeavesCount(root);
+		int[] simulatedVisits = visitsOnOptimalPaths.clone();
+		for (int node = 0; node < nodeCount; node++) {
+			if (targets[node])
+				numberOfLeaves--;
+		}
+
+		/* compute hotlist */
+		progress.beginPhase(AnalysisProgress.HOT_LIST, numberOfLeaves);
+		IntList queue = new IntList();
+		for (int i = 0; i < numberOfLeaves; i++) {
+			progress.checkCancelled();
+			int node = root;
+			while (levelChildren.degree(node) > 0) {
+				int nextNode = levelChildren.target(levelChildren.start(node));
+				for (int j = levelChildren.start(node); j < levelChildren.end(node); j++) {
+					int child = levelChildren.target(j);
+					double childCoverage = simulatedCoverage(simulatedVisits, child);
+					double nextCoverage = simulatedCoverage(simulatedVisits, nextNode);
+					if (childCoverage < nextCoverage)
+						nextNode = child;
+					else if (childCoverage == nextCoverage)
+						if (graph.getLeavesCount(child) > graph.getLeavesCount(nextNode))
+							nextNode = child;
+				}
+				node = nextNode;
+			}
+
+			RCSNode target = graph.getNodeByIndex(node);
+			leaves.offer(target);
+			int[] distancesToTarget = graph.getDistancesTo(target);
+			int distFromNode;
+			int distFromChild;
+			queue.clear();
+			queue.add(root);
+			simulatedVisits[root]++;
+			for (int head = 0; head < queue.size(); head++) {
+				node = queue.get(head);
+				distFromNode = distancesToTarget[node];
+				for (int j = levelChildren.start(node); j < levelChildren.end(node); j++) {
+					int child = levelChildren.target(j);
+					distFromChild = distancesToTarget[child];
+					if (distFromChild != -1 && distFromNode == (distFromChild + 1)) {
+						queue.add(child);
+						simulatedVisits[child]++;
+					}
+				}
+			}
+			gains.offer(simulatedCoverage(simulatedVisits, root));
+			progress.step();
+		}
+
+		hotList[0] = leaves;
+		hotList[1] = gains;
+		return hotList;
+	}
+
+	private double simulatedCoverage(int[] simulatedVisits, int node) {
+		return (double) simulatedVisits[node] / (double) graph.getLeavesCount(node);
+	}
+}
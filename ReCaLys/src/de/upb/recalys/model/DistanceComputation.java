@@ -0,0 +1,146 @@
+package de.upb.recalys.model;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class computes the rows of a {@link DistanceMatrix} with one BFS per
+ * source node. The range of source nodes is split recursively, so the rows can
+ * be computed in parallel on a {@link java.util.concurrent.ForkJoinPool}. Each
+ * worker thread owns its own queue and visited marks, so the BFS does not need
+ * {@link RCSNode#isExplored()} and nothing has to be reset after a source.
+ */
+class DistanceComputation extends RecursiveAction {
+
+	private static final long serialVersionUID = -2479531883735052318L;
+
+	/** Ranges with at most this many sources are not split any further. */
+	private static final int SEQUENTIAL_THRESHOLD = 32;
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final DistanceMatrix matrix;
+	private final ThreadLocal<Workspace> workspaces;
+	private final int[] sources;
+	private final int from;
+	private final int to;
+
+	/**
+	 * Constructor: Creates a new computation for all source nodes.
+	 *
+	 * @param offsets
+	 *            the offsets into {@code targets}: the children of node
+	 *            {@code i} are {@code targets[offsets[i]]} to
+	 *            {@code targets[offsets[i + 1] - 1]}
+	 * @param targets
+	 *            the indices of the children of all nodes
+	 * @param matrix
+	 *            the matrix the distances are written to
+	 */
+	DistanceComputation(int[] offsets, int[] targets, DistanceMatrix matrix) {
+		this(offsets, targets, matrix, ThreadLocal.withInitial(() -> new Workspace(matrix.size())), null, 0,
+				matrix.size());
+	}
+
+	/**
+	 * Constructor: Creates a new computation that recomputes the rows of some
+	 * source nodes. The old distances in these rows are overwritten.
+	 *
+	 * @param offsets
+	 *            the offsets into {@code targets}
+	 * @param targets
+	 *            the indices of the children of all nodes
+	 * @param matrix
+	 *            the matrix the distances are written to
+	 * @param sources
+	 *            the indices of the source nodes whose rows are recomputed
+	 */
+	DistanceComputation(int[] offsets, int[] targets, DistanceMatrix matrix, int[] sources) {
+		this(offsets, targets, matrix, ThreadLocal.withInitial(() -> new Workspace(matrix.size())), sources, 0,
+				sources.length);
+	}
+
+	private DistanceComputation(int[] offsets, int[] targets, DistanceMatrix matrix,
+			ThreadLocal<Workspace> workspaces, int[] sources, int from, int to) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.matrix = matrix;
+		this.workspaces = workspaces;
+		this.sources = sources;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= SEQUENTIAL_THRESHOLD) {
+			Workspace workspace = workspaces.get();
+			for (int i = from; i < to; i++) {
+				if (sources == null) {
+					breadthFirstSearch(i, workspace);
+				} else {
+					for (int target = 0; target < matrix.size(); target++) {
+						matrix.setDistance(sources[i], target, DistanceMatrix.UNREACHABLE);
+					}
+					breadthFirstSearch(sources[i], workspace);
+				}
+			}
+		} else {
+			int middle = (from + to) >>> 1;
+			invokeAll(new DistanceComputation(offsets, targets, matrix, workspaces, sources, from, middle),
+					new DistanceComputation(offsets, targets, matrix, workspaces, sources, middle, to));
+		}
+	}
+
+	/**
+	 * Computes the row of the given source node.
+	 *
+	 * @param source
+	 *            the index of the source node
+	 * @param workspace
+	 *            the workspace of the current thread
+	 */
+	private void breadthFirstSearch(int source, Workspace workspace) {
+		int[] queue = workspace.queue;
+		int[] visited = workspace.visited;
+		int[] distance = workspace.distance;
+		int epoch = ++workspace.epoch;
+
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		visited[source] = epoch;
+		distance[source] = 0;
+		matrix.setDistance(source, source, 0);
+		while (head < tail) {
+			int node = queue[head++];
+			int childDistance = distance[node] + 1;
+			for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+				int child = targets[i];
+				if (visited[child] != epoch) {
+					visited[child] = epoch;
+					distance[child] = childDistance;
+					queue[tail++] = child;
+					matrix.setDistance(source, child, childDistance);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The queue and the visited marks of one worker thread. A node is visited
+	 * in the current BFS if its mark equals the current epoch, so the marks
+	 * never have to be cleared.
+	 */
+	private static class Workspace {
+		final int[] queue;
+		final int[] visited;
+		final int[] distance;
+		int epoch = 0;
+
+		Workspace(int size) {
+			queue = new int[size];
+			visited = new int[size];
+			distance = new int[size];
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package de.upb.recalys.model;
+
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This class defines a dense distance matrix for all pairs of nodes. The
+ * smallest primitive type that can hold every possible distance is chosen by
+ * the size of the graph: a distance is never larger than the number of nodes
+ * minus one, so small graphs use a {@code byte[]} and medium sized graphs a
+ * {@code short[]}. Graphs that are too large for a flat array use one
+ * {@code int[]} per row.
+ */
+public abstract class DistanceMatrix implements DistanceStore, Serializable {
+
+	private static final long serialVersionUID = 4193125703441527581L;
+
+	/** The value that marks a node as not reachable. */
+	public static final int UNREACHABLE = -1;
+
+	/** The number of nodes. */
+	protected final int size;
+
+	/**
+	 * Constructor: Creates a new matrix.
+	 *
+	 * @param size
+	 *            the number of nodes
+	 */
+	protected DistanceMatrix(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Creates a new matrix for the given number of nodes. All distances are
+	 * initialized with {@link #UNREACHABLE}.
+	 *
+	 * @param size
+	 *            the number of nodes
+	 * @return a matrix with the smallest fitting cell type
+	 */
+	public static DistanceMatrix create(int size) {
+		switch (cellBytes(size)) {
+		case 1:
+			return new ByteMatrix(size);
+		case 2:
+			return new ShortMatrix(size);
+		default:
+			return new IntMatrix(size);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of one cell of a matrix for the given number of
+	 * nodes.
+	 *
+	 * @param size
+	 *            the number of nodes
+	 * @return 1, 2 or 4
+	 */
+	static int cellBytes(int size) {
+		if (size <= Byte.MAX_VALUE + 1)
+			return 1;
+		else if (size <= Short.MAX_VALUE + 1)
+			return 2;
+		else
+			return 4;
+	}
+
+	/**
+	 * Creates a read-only matrix on top of a buffer, for example a memory-mapped
+	 * snapshot. The buffer holds the rows one after another with cells of
+	 * {@link #cellBytes(int)} bytes.
+	 *
+	 * @param cells
+	 *            the buffer with the cells, starting at position 0
+	 * @param size
+	 *            the number of nodes
+	 * @return the matrix
+	 */
+	static DistanceMatrix map(ByteBuffer cells, int size) {
+		if (cells.limit() < (long) size * size * cellBytes(size))
+			throw new BufferUnderflowException();
+		return new MappedMatrix(cells, size);
+	}
+
+	/**
+	 * Sets the distance from the source node to the target node.
+	 *
+	 * @param sourceIndex
+	 *            the index of the source node
+	 * @param targetIndex
+	 *            the index of the target node
+	 * @param distance
+	 *            the distance or {@link #UNREACHABLE}
+	 */
+	public abstract void setDistance(int sourceIndex, int targetIndex, int distance);
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a matrix with the same distances that can be modified.
+	 *
+	 * @return this matrix or a copy, if this matrix is read-only
+	 */
+	DistanceMatrix toMutable() {
+		return this;
+	}
+
+	/**
+	 * A matrix for graphs with at most 128 nodes.
+	 */
+	private static class ByteMatrix extends DistanceMatrix {
+
+		private static final long serialVersionUID = -1822447093658214327L;
+		private final byte[] cells;
+
+		ByteMatrix(int size) {
+			super(size);
+			cells = new byte[size * size];
+			Arrays.fill(cells, (byte) UNREACHABLE);
+		}
+
+		@Override
+		public int getDistance(int sourceIndex, int targetIndex) {
+			return cells[sourceIndex * size + targetIndex];
+		}
+
+		@Override
+		public void setDistance(int sourceIndex, int targetIndex, int distance) {
+			cells[sourceIndex * size + targetIndex] = (byte) distance;
+		}
+	}
+
+	/**
+	 * A matrix for graphs with at most 32768 nodes.
+	 */
+	private static class ShortMatrix extends DistanceMatrix {
+
+		private static final long serialVersionUID = 6795617394806232744L;
+		private final short[] cells;
+
+		ShortMatrix(int size) {
+			super(size);
+			cells = new short[size * size];
+			Arrays.fill(cells, (short) UNREACHABLE);
+		}
+
+		@Override
+		public int getDistance(int sourceIndex, int targetIndex) {
+			return cells[sourceIndex * size + targetIndex];
+		}
+
+		@Override
+		public void setDistance(int sourceIndex, int targetIndex, int distance) {
+			cells[sourceIndex * size + targetIndex] = (short) distance;
+		}
+	}
+
+	/**
+	 * A matrix for larger graphs. Because {@code size * size} would exceed the
+	 * maximum length of an array, every row is stored in its own array.
+	 */
+	private static class IntMatrix extends DistanceMatrix {
+
+		private static final long serialVersionUID = -3062907611683398310L;
+		private final int[][] rows;
+
+		IntMatrix(int size) {
+			super(size);
+			rows = new int[size][size];
+			for (int[] row : rows)
+				Arrays.fill(row, UNREACHABLE);
+		}
+
+		@Override
+		public int getDistance(int sourceIndex, int targetIndex) {
+			return rows[sourceIndex][targetIndex];
+		}
+
+		@Override
+		public void setDistance(int sourceIndex, int targetIndex, int distance) {
+			rows[sourceIndex][targetIndex] = distance;
+		}
+	}
+
+	/**
+	 * A read-only matrix whose cells stay in a buffer outside of the heap. When
+	 * it is serialized, it is replaced by a copy on the heap.
+	 */
+	private static class MappedMatrix extends DistanceMatrix {
+
+		private static final long serialVersionUID = 2508863370745410368L;
+		private final transient ByteBuffer cells;
+		private final int cellBytes;
+
+		MappedMatrix(ByteBuffer cells, int size) {
+			super(size);
+			this.cells = cells;
+			this.cellBytes = cellBytes(size);
+		}
+
+		@Override
+		public int getDistance(int sourceIndex, int targetIndex) {
+			int cell = sourceIndex * size + targetIndex;
+			if (cellBytes == 1)
+				return cells.get(cell);
+			else if (cellBytes == 2)
+				return cells.getShort(cell * 2);
+			else
+				return cells.getInt(cell * 4);
+		}
+
+		@Override
+		public void setDistance(int sourceIndex, int targetIndex, int distance) {
+			throw new UnsupportedOperationException("The matrix is read-only");
+		}
+
+		@Override
+		DistanceMatrix toMutable() {
+			DistanceMatrix copy = create(size);
+			for (int source = 0; source < size; source++) {
+				for (int target = 0; target < size; target++) {
+					copy.setDistance(source, target, getDistance(source, target));
+				}
+			}
+			return copy;
+		}
+
+		private Object writeReplace() {
+			return toMutable();
+		}
+	}
+}
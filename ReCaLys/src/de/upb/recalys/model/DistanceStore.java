@@ -0,0 +1,28 @@
+package de.upb.recalys.model;
+
+/**
+ * A DistanceStore holds the distances between the nodes of a {@link RCSGraph}.
+ * The nodes are addressed by their dense index (see {@link RCSNode#getIndex()})
+ * instead of their ReCaPo-IDs, so a lookup never needs to create any objects.
+ */
+public interface DistanceStore {
+
+	/**
+	 * Gets the distance from the source node to the target node. If the target
+	 * is not reachable from the source, the distance will be -1.
+	 *
+	 * @param sourceIndex
+	 *            the index of the source node
+	 * @param targetIndex
+	 *            the index of the target node
+	 * @return distance or -1 if the target is not reachable
+	 */
+	public int getDistance(int sourceIndex, int targetIndex);
+
+	/**
+	 * Returns the number of nodes this store holds distances for.
+	 *
+	 * @return number of nodes
+	 */
+	public int size();
+}
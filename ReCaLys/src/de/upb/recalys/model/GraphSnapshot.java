@@ -0,0 +1,317 @@
+package de.upb.recalys.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * This class reads and writes binary snapshots of a built {@link RCSGraph}. A
+ * snapshot contains the IDs and labels of the nodes, the adjacencies of the
+ * graph and the levelgraph, the levels, degrees, leaf counts and subtree sizes
+ * and the distances. It is stored next to the IA file with the extension
+ * {@value #EXTENSION} and is only used if it carries the same format version
+ * and the same SHA-256 hash as the IA file. The file is opened with
+ * {@link FileChannel#map}, so a distance matrix is never copied onto the heap.
+ *
+ * <p>
+ * Layout, all numbers big-endian:
+ *
+ * <pre>
+ * int     magic, format version
+ * byte[32] SHA-256 of the IA file
+ * int     number of nodes n, index of the root
+ * int[n]  node IDs
+ * int[n+1] label offsets, followed by the UTF-8 bytes of all labels
+ * 4 x     adjacency (int[n+1] offsets, int edge count, int[] targets) for
+ *         children, parents, level children and level parents
+ * int[n]  levels, degrees, leaf counts, subtree sizes
+ * int     distance mode, followed by the matrix cells if it is stored
+ * </pre>
+ */
+final class GraphSnapshot {
+
+	/** The extension that is appended to the name of the IA file. */
+	static final String EXTENSION = ".rcs";
+
+	/** The version of the format. It must be increased on every change. */
+	static final int FORMAT_VERSION = 2;
+
+	private static final int MAGIC = 0x52435347; // "RCSG"
+	private static final int HASH_BYTES = 32;
+
+	/* how the distances are stored */
+	private static final int DISTANCES_LAZY = 0, DISTANCES_MATRIX = 1, DISTANCES_RECOMPUTE = 2;
+
+	private GraphSnapshot() {
+	}
+
+	/**
+	 * Returns the snapshot file for an IA file.
+	 *
+	 * @param importFile
+	 *            the IA file
+	 * @return the snapshot file next to it
+	 */
+	static File snapshotFile(File importFile) {
+		return new File(importFile.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Computes the SHA-256 hash of the content of a file.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the hash
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static byte[] hash(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Reads a graph from a snapshot.
+	 *
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param hash
+	 *            the hash of the IA file the snapshot must belong to
+	 * @return the graph or null, if there is no snapshot, it belongs to another
+	 *         IA file or format version or it cannot be read
+	 */
+	static RCSGraph read(File snapshot, byte[] hash) {
+		if (!snapshot.isFile())
+			return null;
+		try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+			// check the header before the file is mapped
+			ByteBuffer header = ByteBuffer.allocate(8 + HASH_BYTES);
+			while (header.hasRemaining() && channel.read(header) != -1) {
+			}
+			header.flip();
+			if (header.remaining() < header.capacity() || header.getInt() != MAGIC
+					|| header.getInt() != FORMAT_VERSION)
+				return null;
+			byte[] storedHash = new byte[HASH_BYTES];
+			header.get(storedHash);
+			if (!Arrays.equals(storedHash, hash))
+				return null;
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.position(header.capacity());
+			return readGraph(buffer);
+		} catch (IOException | RuntimeException e) {
+			// a damaged snapshot is ignored and will be rebuilt
+			return null;
+		}
+	}
+
+	private static RCSGraph readGraph(ByteBuffer buffer) {
+		int size = buffer.getInt();
+		int rootIndex = buffer.getInt();
+		if (size < 1 || rootIndex < 0 || rootIndex >= size)
+			return null;
+
+		int[] ids = readInts(buffer, size);
+		int[] labelOffsets = readInts(buffer, size + 1);
+		byte[] labelBytes = new byte[labelOffsets[size]];
+		buffer.get(labelBytes);
+
+		RCSGraph graph = new RCSGraph();
+		for (int i = 0; i < size; i++) {
+			String label = new String(labelBytes, labelOffsets[i], labelOffsets[i + 1] - labelOffsets[i],
+					StandardCharsets.UTF_8);
+			graph.addNode(new RCSNode(ids[i], label));
+		}
+		if (graph.getNodeCount() != size)
+			return null; // the IDs are not unique
+
+		Adjacency children = readAdjacency(buffer, size);
+		Adjacency parents = readAdjacency(buffer, size);
+		Adjacency levelChildren = readAdjacency(buffer, size);
+		Adjacency levelParents = readAdjacency(buffer, size);
+		int[] levels = readInts(buffer, size);
+		int[] degrees = readInts(buffer, size);
+		int[] leavesCounts = readInts(buffer, size);
+		int[] subtreeSizes = readInts(buffer, size);
+
+		DistanceStore distances;
+		int mode = buffer.getInt();
+		if (mode == DISTANCES_LAZY) {
+			distances = new TargetDistanceOracle(parents.offsets(), parents.targets());
+		} else if (mode == DISTANCES_MATRIX) {
+			ByteBuffer cells = buffer.slice();
+			cells.limit(size * size * DistanceMatrix.cellBytes(size));
+			distances = DistanceMatrix.map(cells, size);
+		} else if (mode == DISTANCES_RECOMPUTE) {
+			distances = null;
+		} else {
+			return null;
+		}
+
+		graph.restore(graph.getNodeByIndex(rootIndex), children, parents, levelChildren, levelParents, levels,
+				degrees, leavesCounts, subtreeSizes, distances);
+		return graph;
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int count) {
+		if (count < 0 || count > buffer.remaining() / 4)
+			throw new BufferUnderflowException();
+		int[] values = new int[count];
+		IntBuffer ints = buffer.asIntBuffer();
+		ints.get(values);
+		buffer.position(buffer.position() + count * 4);
+		return values;
+	}
+
+	private static Adjacency readAdjacency(ByteBuffer buffer, int size) {
+		int[] offsets = readInts(buffer, size + 1);
+		int[] targets = readInts(buffer, buffer.getInt());
+		if (offsets[0] != 0 || offsets[size] != targets.length)
+			throw new IllegalStateException("Damaged adjacency");
+		for (int i = 0; i < size; i++) {
+			if (offsets[i] > offsets[i + 1])
+				throw new IllegalStateException("Damaged adjacency");
+		}
+		for (int target : targets) {
+			if (target < 0 || target >= size)
+				throw new IllegalStateException("Damaged adjacency");
+		}
+		return new Adjacency(offsets, targets);
+	}
+
+	/**
+	 * Writes a snapshot of a graph. The snapshot is written to a temporary file
+	 * first and then moved to its place, so a snapshot is never read while it is
+	 * only partly written.
+	 *
+	 * @param graph
+	 *            the graph with its levelgraph, degrees, leaf counts and
+	 *            distances
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param hash
+	 *            the hash of the IA file the graph was built from
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	static void write(RCSGraph graph, File snapshot, byte[] hash) throws IOException {
+		int size = graph.getNodeCount();
+		if (graph.getRoot() == null || graph.getRoot().getIndex() < 0)
+			throw new IOException("The graph has no root");
+
+		File directory = snapshot.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile(snapshot.getName(), ".tmp", directory);
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.write(hash);
+				out.writeInt(size);
+				out.writeInt(graph.getRoot().getIndex());
+
+				byte[][] labels = new byte[size][];
+				for (int i = 0; i < size; i++) {
+					RCSNode node = graph.getNodeByIndex(i);
+					out.writeInt(node.getID());
+					labels[i] = node.getLabel().getBytes(StandardCharsets.UTF_8);
+				}
+				int offset = 0;
+				out.writeInt(offset);
+				for (byte[] label : labels) {
+					offset += label.length;
+					out.writeInt(offset);
+				}
+				for (byte[] label : labels) {
+					out.write(label);
+				}
+
+				writeAdjacency(out, graph.getChildAdjacency());
+				writeAdjacency(out, graph.getParentAdjacency());
+				writeAdjacency(out, graph.getLevelChildAdjacency());
+				writeAdjacency(out, graph.getLevelParentAdjacency());
+				for (int i = 0; i < size; i++) {
+					out.writeInt(graph.getLevel(i));
+				}
+				for (int i = 0; i < size; i++) {
+					out.writeInt(graph.getDegree(i));
+				}
+				for (int i = 0; i < size; i++) {
+					out.writeInt(graph.getLeavesCount(i));
+				}
+				for (int i = 0; i < size; i++) {
+					out.writeInt(graph.getSubtreeSize(i));
+				}
+				writeDistances(out, graph.getDistanceStore());
+			}
+			Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private static void writeAdjacency(DataOutputStream out, Adjacency adjacency) throws IOException {
+		for (int offset : adjacency.offsets()) {
+			out.writeInt(offset);
+		}
+		out.writeInt(adjacency.edgeCount());
+		for (int target : adjacency.targets()) {
+			out.writeInt(target);
+		}
+	}
+
+	private static void writeDistances(DataOutputStream out, DistanceStore distances) throws IOException {
+		if (distances instanceof TargetDistanceOracle) {
+			out.writeInt(DISTANCES_LAZY);
+			return;
+		}
+		int size = distances.size();
+		int cellBytes = DistanceMatrix.cellBytes(size);
+		if ((long) size * size * cellBytes > Integer.MAX_VALUE) {
+			// too large for a single mapped buffer
+			out.writeInt(DISTANCES_RECOMPUTE);
+			return;
+		}
+		out.writeInt(DISTANCES_MATRIX);
+		for (int source = 0; source < size; source++) {
+			for (int target = 0; target < size; target++) {
+				int distance = distances.getDistance(source, target);
+				if (cellBytes == 1)
+					out.writeByte(distance);
+				else if (cellBytes == 2)
+					out.writeShort(distance);
+				else
+					out.writeInt(distance);
+			}
+		}
+	}
+}
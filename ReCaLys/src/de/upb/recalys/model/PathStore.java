@@ -0,0 +1,323 @@
+package de.upb.recalys.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class stores all paths of an experiment in columns of primitive arrays.
+ * The steps of all paths lie one after another in one array of node indices and
+ * one array of latencies, the paths only store where their steps begin and end.
+ * The user, the target, the duration and the status of each path are kept in
+ * parallel arrays, so an {@link RCSPath} is only a small cursor on a path
+ * number.
+ *
+ * <p>
+ * Steps can only be appended to the path that was created last, which is
+ * exactly what an import does.
+ */
+public class PathStore implements Serializable {
+
+	private static final long serialVersionUID = 6128073945532815407L;
+
+	/** The node index that is stored for items that are not in the graph. */
+	static final int NO_NODE = -1;
+
+	/* status flags of a path */
+	static final byte FINALIZED = 1, SKIPPED = 2;
+
+	private final RCSGraph graph;
+
+	/* the steps of all paths */
+	private int[] stepNodes;
+	private int[] stepLatencies;
+	private int stepCount;
+
+	/* the columns of the paths */
+	private int[] starts;
+	private int[] ends;
+	private int[] targets;
+	private int[] users;
+	private int[] durations;
+	private byte[] status;
+	private int pathCount;
+
+	/* every user is stored only once */
+	private ArrayList<String> userNames;
+	private HashMap<String, Integer> userIndices;
+
+	/**
+	 * Constructor: Creates a new empty store.
+	 *
+	 * @param graph
+	 *            the graph the nodes of the paths belong to
+	 */
+	public PathStore(RCSGraph graph) {
+		this.graph = graph;
+		stepNodes = new int[1024];
+		stepLatencies = new int[1024];
+		starts = new int[64];
+		ends = new int[64];
+		targets = new int[64];
+		users = new int[64];
+		durations = new int[64];
+		status = new byte[64];
+		userNames = new ArrayList<String>();
+		userIndices = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Creates a new empty path at the end of the store.
+	 *
+	 * @param target
+	 *            target node of the path
+	 * @param user
+	 *            the user the path belongs to
+	 * @param duration
+	 *            the duration in the format "HH:MM:SS"
+	 * @return the new path
+	 */
+	public RCSPath createPath(RCSNode target, String user, String duration) {
+		int path = appendPath(target == null ? NO_NODE : target.getIndex(), userIndex(user),
+				duration == null ? 0 : parseDuration(duration));
+		return new RCSPath(this, path);
+	}
+
+	/**
+	 * Appends a copy of a path of another store to the end of this store. Both
+	 * stores must belong to the same graph.
+	 *
+	 * @param path
+	 *            the path that shall be copied
+	 * @return the copy
+	 */
+	public RCSPath copyPath(RCSPath path) {
+		PathStore source = path.getStore();
+		if (source.graph != graph)
+			throw new IllegalArgumentException("The path belongs to another graph");
+		int from = path.getNumber();
+		int copy = appendPath(source.targets[from], userIndex(source.user(from)), source.durations[from]);
+		status[copy] = source.status[from];
+
+		int length = source.size(from);
+		ensureStepCapacity(stepCount + length);
+		System.arraycopy(source.stepNodes, source.starts[from], stepNodes, stepCount, length);
+		System.arraycopy(source.stepLatencies, source.starts[from], stepLatencies, stepCount, length);
+		stepCount += length;
+		ends[copy] = stepCount;
+		return new RCSPath(this, copy);
+	}
+
+	private int appendPath(int target, int user, int duration) {
+		if (pathCount == starts.length) {
+			int capacity = pathCount * 2;
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			users = Arrays.copyOf(users, capacity);
+			durations = Arrays.copyOf(durations, capacity);
+			status = Arrays.copyOf(status, capacity);
+		}
+		int path = pathCount++;
+		starts[path] = stepCount;
+		ends[path] = stepCount;
+		targets[path] = target;
+		users[path] = user;
+		durations[path] = duration;
+		status[path] = 0;
+		return path;
+	}
+
+	private void ensureStepCapacity(int capacity) {
+		if (capacity > stepNodes.length) {
+			int length = Math.max(capacity, stepNodes.length * 2);
+			stepNodes = Arrays.copyOf(stepNodes, length);
+			stepLatencies = Arrays.copyOf(stepLatencies, length);
+		}
+	}
+
+	/**
+	 * Removes the path that was created last, e.g. if it turns out not to be
+	 * relevant at its end.
+	 *
+	 * @param path
+	 *            the path that was created last
+	 */
+	public void discardPath(RCSPath path) {
+		if (path.getNumber() != pathCount - 1)
+			throw new IllegalStateException("Only the last path can be discarded");
+		pathCount--;
+		stepCount = starts[pathCount];
+	}
+
+	/**
+	 * Returns the number of paths in the store.
+	 *
+	 * @return number of paths
+	 */
+	public int getPathCount() {
+		return pathCount;
+	}
+
+	/**
+	 * Returns the number of steps of all paths in the store.
+	 *
+	 * @return number of steps
+	 */
+	public int getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * Appends a step to a path.
+	 *
+	 * @param path
+	 *            the number of the path
+	 * @param node
+	 *            the node or null, if the item is not in the graph
+	 * @param latency
+	 *            latency at that node
+	 * @return true, if adding was successfull, else false
+	 */
+	boolean addStep(int path, RCSNode node, int latency) {
+		if ((status[path] & FINALIZED) != 0)
+			return false;
+		if (path != pathCount - 1)
+			throw new IllegalStateException("Steps can only be added to the last path");
+		ensureStepCapacity(stepCount + 1);
+		stepNodes[stepCount] = node == null ? NO_NODE : node.getIndex();
+		stepLatencies[stepCount] = latency;
+		ends[path] = ++stepCount;
+		return true;
+	}
+
+	/**
+	 * Finalizes a path so that no more steps can be added. The latency of the
+	 * last step is set to zero, because there cannot be a latency.
+	 *
+	 * @param path
+	 *            the number of the path
+	 */
+	void finalizePath(int path) {
+		if (ends[path] > starts[path])
+			stepLatencies[ends[path] - 1] = 0;
+		status[path] |= FINALIZED;
+	}
+
+	/**
+	 * Returns the node indices of all steps. The steps of a path lie between
+	 * {@link #start(int)} and {@link #end(int)}. The array must not be modified.
+	 *
+	 * @return the node indices
+	 */
+	int[] stepNodes() {
+		return stepNodes;
+	}
+
+	/**
+	 * Returns the latencies of all steps. The array must not be modified.
+	 *
+	 * @return the latencies
+	 */
+	int[] stepLatencies() {
+		return stepLatencies;
+	}
+
+	int start(int path) {
+		return starts[path];
+	}
+
+	int end(int path) {
+		return ends[path];
+	}
+
+	int size(int path) {
+		return ends[path] - starts[path];
+	}
+
+	/**
+	 * Returns the node of a step.
+	 *
+	 * @param step
+	 *            the position of the step in the store
+	 * @return the node or null, if the item is not in the graph
+	 */
+	RCSNode node(int step) {
+		int index = stepNodes[step];
+		return index == NO_NODE ? null : graph.getNodeByIndex(index);
+	}
+
+	RCSGraph getGraph() {
+		return graph;
+	}
+
+	int target(int path) {
+		return targets[path];
+	}
+
+	String user(int path) {
+		return userNames.get(users[path]);
+	}
+
+	void setUser(int path, String user) {
+		users[path] = userIndex(user);
+	}
+
+	int duration(int path) {
+		return durations[path];
+	}
+
+	void setDuration(int path, int seconds) {
+		durations[path] = seconds;
+	}
+
+	boolean hasStatus(int path, byte flag) {
+		return (status[path] & flag) != 0;
+	}
+
+	void setStatus(int path, byte flag, boolean value) {
+		if (value)
+			status[path] |= flag;
+		else
+			status[path] &= ~flag;
+	}
+
+	private int userIndex(String user) {
+		Integer index = userIndices.get(user);
+		if (index == null) {
+			index = userNames.size();
+			userNames.add(user);
+			userIndices.put(user, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Parses a duration in the format "HH:MM:SS".
+	 *
+	 * @param duration
+	 *            the duration
+	 * @return the duration in seconds
+	 */
+	static int parseDuration(String duration) {
+		int seconds = 0;
+		int mult = 3600;
+		for (String d : duration.split(":")) {
+			seconds += Integer.parseInt(d) * mult;
+			mult /= 60;
+		}
+		return seconds;
+	}
+
+	/**
+	 * Formats a duration in the format "HH:MM:SS".
+	 *
+	 * @param seconds
+	 *            the duration in seconds
+	 * @return the formatted duration
+	 */
+	static String formatDuration(int seconds) {
+		return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+	}
+}
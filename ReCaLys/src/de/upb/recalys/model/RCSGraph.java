@@ -2,20 +2,27 @@ package de.upb.recalys.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.JDOMException;
-import org.jdom2.filter.ElementFilter;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.util.IteratorIterable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import de.upb.recalys.control.ReCaLys;
-import de.upb.recalys.helper.PairOfInt;
+import de.upb.recalys.helper.CompressedInput;
+import de.upb.recalys.helper.IntIndexMap;
+import de.upb.recalys.helper.IntList;
 
 /**
  * This class defines the graph that represents the website structure
@@ -27,27 +34,55 @@ public class RCSGraph implements Serializable {
 
 	private static final long serialVersionUID = -7924849454654399670L;
 	private int elements;
-	private int[][] distances;
 
 	/**
-	 * A HashMap that maps a pair of two IDs from Nodes to the distance as an
-	 * integer of the corresponding two nodes.
+	 * The distances between all nodes, addressed by the dense indices of the
+	 * nodes.
 	 */
-	private HashMap<PairOfInt, Integer> distanceMap;
+	private DistanceStore distances;
 
 	private RCSNode root = null;
 	private RCSNode levelRoot = null;
 
-	/** A Hashmap of all the nodes in the graph with the IDs as keys. */
-	private HashMap<Integer, RCSNode> nodeMap;
+	/** Maps the IDs of all the nodes in the graph to their dense indices. */
+	private IntIndexMap nodeIndex;
+
+	/** All the nodes in the graph in the order of their dense indices. */
+	private ArrayList<RCSNode> nodes;
+
+	/*
+	 * the structure of the graph in compressed sparse row format, addressed by the
+	 * dense indices of the nodes
+	 */
+	private Adjacency children, parents, levelChildren, levelParents;
+	private int[] levels, degrees, leavesCounts, subtreeSizes;
+
+	/*
+	 * the number of words in the label of every node and the sum over the labels
+	 * of its children, computed once for the minimal latencies
+	 */
+	private int[] labelWords, childLabelWords;
+	private int[] minimalLatencies;
+	private int timeToThink = 250;
 	private ReCaLys recalys;
 
-	private String systematicSearchingLog;
+	/* the analysis the nodes show */
+	private transient volatile AnalysisResult analysis;
+
+	/**
+	 * The maximal number of nodes for which the distances between all nodes are
+	 * computed in advance.
+	 */
+	public static final int MAX_MATRIX_NODES = 4096;
+
+	/** The number of words an average user reads per second. */
+	private static final int WORDS_PER_SECOND = 2;
 
 	/*
 	 * the names of the relevant xml-tags and attributes for the import
 	 */
-	private final String TITLE = "title", ITEM = "item", ITEM_ID = "itemID", LINK_TO_ITEM_ID = "linkToItemID";
+	private final String TITLE = "title", ITEM = "item", ITEM_ID = "itemID", LINK_TO_ITEM_ID = "linkToItemID",
+			CHILDREN = "children";
 
 	/**
 	 * Constructor: Creates a new graph
@@ -56,104 +91,306 @@ public class RCSGraph implements Serializable {
 		super();
 		elements = 0;
 
-		nodeMap = new HashMap<Integer, RCSNode>();
+		nodeIndex = new IntIndexMap();
+		nodes = new ArrayList<RCSNode>();
+	}
+
+	/**
+	 * Adds a node to the graph and assigns the next free dense index to it. If
+	 * there is already another node with the same ID, the new node replaces it
+	 * and takes over its index.
+	 * 
+	 * @param node
+	 *            the node that shall be added
+	 */
+	void addNode(RCSNode node) {
+		int index = nodeIndex.get(node.getID());
+		if (index == IntIndexMap.NOT_FOUND) {
+			nodeIndex.put(node.getID(), nodes.size());
+			node.setIndex(this, nodes.size());
+			nodes.add(node);
+		} else if (nodes.get(index) != node) {
+			RCSNode previous = nodes.get(index);
+			node.setIndex(this, index);
+			nodes.set(previous.getIndex(), node);
+			previous.setIndex(null, -1);
+		}
+	}
+
+	/**
+	 * Sets the links between the nodes. A link that appears more than once is
+	 * only added the first time. The children and parents of a node keep the
+	 * order of the links.
+	 * 
+	 * @param sources
+	 *            the indices of the parents
+	 * @param targets
+	 *            the indices of the children
+	 */
+	private void setLinks(IntList sources, IntList targets) {
+		Adjacency all = Adjacency.build(nodes.size(), sources, targets);
+		IntList linkSources = new IntList(sources.size());
+		IntList linkTargets = new IntList(targets.size());
+		int[] added = new int[nodes.size()];
+		Arrays.fill(added, -1);
+		for (int node = 0; node < nodes.size(); node++) {
+			for (int i = all.start(node); i < all.end(node); i++) {
+				if (added[all.target(i)] != node) {
+					added[all.target(i)] = node;
+					linkSources.add(node);
+					linkTargets.add(all.target(i));
+				}
+			}
+		}
+		children = Adjacency.build(nodes.size(), linkSources, linkTargets);
+		parents = Adjacency.build(nodes.size(), linkTargets, linkSources);
 	}
 
 	/**
-	 * Builds a new graph structure based on the imported XMl-File
+	 * Loads the graph for an IA file with its levelgraph, degrees, leaf counts and
+	 * distances. If there is a snapshot of the same IA file next to it (see
+	 * {@link GraphSnapshot}), the graph is read from the snapshot. Otherwise the
+	 * graph is built from the XML-File and, if requested, a new snapshot is
+	 * written. A snapshot that cannot be read or written is ignored.
 	 * 
 	 * @param xmlFile
 	 *            the imported XML-file that represents the website structure
-	 * @author Roman Kober
+	 * @param writeSnapshot
+	 *            true, if a snapshot shall be written next to the XML-file
+	 * @return the graph
+	 * @throws IOException
+	 *             if the XML-file cannot be read or parsed
 	 */
-	public void buildGraph(File xmlFile) {
+	public static RCSGraph load(File xmlFile, boolean writeSnapshot) throws IOException {
+		File snapshot = GraphSnapshot.snapshotFile(xmlFile);
+		byte[] hash = null;
 		try {
-			SAXBuilder saxBuilder = new SAXBuilder();
-
-			Document document = saxBuilder.build(xmlFile);
-			Element docRootElement = document.getRootElement();
-			Element rootElement = docRootElement.getChild(ITEM);
-
-			root = new RCSNode(Integer.parseInt(rootElement.getChildText(ITEM_ID)), "Startseite");
-			nodeMap.put(root.getID(), root);
-			ArrayList<RCSNode> parents = new ArrayList<>();
-			parents.add(root);
-			IteratorIterable<Element> itemList = rootElement.getDescendants(new ElementFilter("item"));
-
-			// get all the cards and put them into the nodeMap
-			for (Element item : itemList) {
-				if (item.getChildText(LINK_TO_ITEM_ID).isEmpty()) {
-					int id = Integer.parseInt(item.getChildText(ITEM_ID));
-					String title = item.getChildText(TITLE);
-					RCSNode node = new RCSNode(id, title);
-					nodeMap.put(node.getID(), node);
-				}
+			hash = GraphSnapshot.hash(xmlFile);
+		} catch (IOException e) {
+			Logger.getLogger(RCSGraph.class.getName()).log(Level.INFO, "Could not hash " + xmlFile, e);
+		}
+
+		RCSGraph graph = hash == null ? null : GraphSnapshot.read(snapshot, hash);
+		if (graph != null) {
+			if (graph.distances == null)
+				graph.computeDistances(false);
+			return graph;
+		}
+
+		graph = new RCSGraph();
+		graph.buildGraph(xmlFile);
+		graph.computeDistances();
+		graph.buildLevelGraph();
+		graph.addNodeDegrees();
+		graph.addLeavesCount();
+		if (writeSnapshot && hash != null) {
+			try {
+				GraphSnapshot.write(graph, snapshot, hash);
+			} catch (IOException e) {
+				Logger.getLogger(RCSGraph.class.getName()).log(Level.INFO, "Could not write " + snapshot, e);
 			}
-			// build the actual graph with children and parents
-			for (Element item : itemList) {
-				int id, parentElementID;
-				// link
-				if (!item.getChildText(LINK_TO_ITEM_ID).isEmpty()) {
-					id = Integer.parseInt(item.getChildText(LINK_TO_ITEM_ID));
-					parentElementID = Integer
-							.parseInt(item.getParentElement().getParentElement().getChildText(ITEM_ID));
-				} else { // normal node
-					id = Integer.parseInt(item.getChildText(ITEM_ID));
-					parentElementID = Integer
-							.parseInt(item.getParentElement().getParentElement().getChildText(ITEM_ID));
-				}
-				if (!nodeMap.get(parentElementID).isChild(nodeMap.get(id))) {
-					nodeMap.get(id).addParent(nodeMap.get(parentElementID));
-					nodeMap.get(parentElementID).addChildren(nodeMap.get(id));
+		}
+		return graph;
+	}
+
+	/**
+	 * Sets the whole structure of a graph whose nodes are already added, for
+	 * example from a snapshot.
+	 * 
+	 * @param root
+	 *            the root
+	 * @param children
+	 *            the children of all nodes
+	 * @param parents
+	 *            the parents of all nodes
+	 * @param levelChildren
+	 *            the children of all nodes in the levelgraph
+	 * @param levelParents
+	 *            the parents of all nodes in the levelgraph
+	 * @param levels
+	 *            the levels of all nodes
+	 * @param degrees
+	 *            the degrees of all nodes
+	 * @param leavesCounts
+	 *            the number of leaves under all nodes
+	 * @param subtreeSizes
+	 *            the subtree sizes of all nodes
+	 * @param distances
+	 *            the distances or null, if they still have to be computed
+	 */
+	void restore(RCSNode root, Adjacency children, Adjacency parents, Adjacency levelChildren,
+			Adjacency levelParents, int[] levels, int[] degrees, int[] leavesCounts, int[] subtreeSizes,
+			DistanceStore distances) {
+		this.root = root;
+		this.children = children;
+		this.parents = parents;
+		this.levelChildren = levelChildren;
+		this.levelParents = levelParents;
+		this.levels = levels;
+		this.degrees = degrees;
+		this.leavesCounts = leavesCounts;
+		this.subtreeSizes = subtreeSizes;
+		this.distances = distances;
+		elements = nodes.size();
+	}
+
+	/**
+	 * Builds a new graph structure based on the imported XMl-File. The file is read
+	 * in a single pass with StAX. The IDs of the enclosing items are kept on a
+	 * stack, and the links between the items are collected as pairs of IDs and
+	 * added after the whole file is read, because a link may point to an item that
+	 * appears later in the file. The file may be compressed (see
+	 * {@link CompressedInput}).
+	 * 
+	 * @param xmlFile
+	 *            the imported XML-file that represents the website structure
+	 * @throws IOException
+	 *             if the file cannot be read or parsed, no graph is built then
+	 * @author Roman Kober
+	 */
+	public void buildGraph(File xmlFile) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+		// pairs of (parent ID, child ID) in the order of the file
+		IntList links = new IntList();
+		// the IDs of the open items; -1 for an item that is not resolved yet
+		IntList openItems = new IntList();
+		int skippedDepth = 0;
+		String itemID = null, title = null, linkToItemID = null;
+
+		try (InputStream in = CompressedInput.open(xmlFile)) {
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if (skippedDepth > 0) {
+						skippedDepth++;
+					} else if (name.equals(ITEM)) {
+						if (openItems.isEmpty() && root != null) {
+							// only the first item on the top level is the root
+							skippedDepth = 1;
+						} else {
+							openItems.add(-1);
+							itemID = title = linkToItemID = null;
+						}
+					} else if (!openItems.isEmpty() && openItems.get(openItems.size() - 1) == -1) {
+						if (name.equals(ITEM_ID))
+							itemID = reader.getElementText();
+						else if (name.equals(TITLE))
+							title = reader.getElementText();
+						else if (name.equals(LINK_TO_ITEM_ID))
+							linkToItemID = reader.getElementText();
+						else if (name.equals(CHILDREN))
+							resolveItem(itemID, title, linkToItemID, openItems, links);
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (skippedDepth > 0) {
+						skippedDepth--;
+					} else if (!openItems.isEmpty() && reader.getLocalName().equals(ITEM)) {
+						if (openItems.get(openItems.size() - 1) == -1)
+							resolveItem(itemID, title, linkToItemID, openItems, links);
+						openItems.removeLast();
+					}
 				}
 			}
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not parse " + xmlFile, e);
+		}
 
-		} catch (JDOMException e) {
-			e.printStackTrace();
-		} catch (IOException ioe) {
-			ioe.printStackTrace();
+		// build the actual graph with children and parents
+		IntList sources = new IntList(links.size() / 2);
+		IntList targets = new IntList(links.size() / 2);
+		for (int i = 0; i < links.size(); i += 2) {
+			sources.add(nodeIndex.get(links.get(i)));
+			targets.add(nodeIndex.get(links.get(i + 1)));
 		}
-		elements = nodeMap.size();
+		setLinks(sources, targets);
+		elements = nodes.size();
+	}
+
+	/**
+	 * Resolves the innermost open item as soon as all of its properties are read:
+	 * a normal item becomes a node, and the link from its enclosing item is
+	 * remembered. The first item becomes the root.
+	 * 
+	 * @param itemID
+	 *            the ID of the item
+	 * @param title
+	 *            the title of the item
+	 * @param linkToItemID
+	 *            the ID of the item this item links to or an empty String
+	 * @param openItems
+	 *            the IDs of the open items, the last one is the item to resolve
+	 * @param links
+	 *            the pairs of (parent ID, child ID)
+	 */
+	private void resolveItem(String itemID, String title, String linkToItemID, IntList openItems, IntList links) {
+		int id = Integer.parseInt(itemID);
+		openItems.set(openItems.size() - 1, id);
+		if (openItems.size() == 1) {
+			root = new RCSNode(id, "Startseite");
+			addNode(root);
+			return;
+		}
+		if (linkToItemID.isEmpty()) {
+			addNode(new RCSNode(id, title));
+		} else {
+			id = Integer.parseInt(linkToItemID);
+		}
+		links.add(openItems.get(openItems.size() - 2));
+		links.add(id);
 	}
 
 	/**
 	 * Computes the distances between all nodes in the level graph. If a node is not
-	 * reachable from another node the distance will be set to -1.
+	 * reachable from another node the distance will be set to -1. Graphs with up to
+	 * {@link #MAX_MATRIX_NODES} nodes get a complete distance matrix, larger graphs
+	 * compute the distances to a target on demand.
 	 */
 	public void computeDistances() {
-		distanceMap = new HashMap<>();
-		int sourceID;
-		RCSNode node;
-		LinkedList<RCSNode> queue;
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
-			node.setExplored(true);
-			sourceID = id;
-			String sourceLBL = node.getLabel();
-			queue = new LinkedList<RCSNode>();
-			queue.offer(node);
-			distanceMap.put(new PairOfInt(sourceID, sourceID), 0);
-			while (!queue.isEmpty()) {
-				node = (RCSNode) queue.removeFirst();
-				for (RCSNode child : node.getChildren()) {
-					if (!child.isExplored()) {
-						queue.addLast(child);
-						distanceMap.put(new PairOfInt(sourceID, child.getID()),
-								distanceMap.get(new PairOfInt(sourceID, node.getID())) + 1);
-						child.setExplored(true);
-					}
-				}
-			}
-			for (Integer i : nodeMap.keySet()) {
-				node = nodeMap.get(i);
-				node.setExplored(false);
-			}
+		computeDistances(nodes.size() > MAX_MATRIX_NODES);
+	}
+
+	/**
+	 * Computes the distances between all nodes in the level graph. If a node is not
+	 * reachable from another node the distance will be set to -1.
+	 * 
+	 * @param lazy
+	 *            true, if the distances to a target shall be computed when they
+	 *            are needed for the first time (see {@link TargetDistanceOracle});
+	 *            false, if the distances between all nodes shall be computed now by
+	 *            parallel BFS
+	 */
+	public void computeDistances(boolean lazy) {
+		if (lazy) {
+			distances = new TargetDistanceOracle(parents.offsets(), parents.targets());
+		} else {
+			DistanceMatrix matrix = DistanceMatrix.create(nodes.size());
+			ForkJoinPool.commonPool().invoke(new DistanceComputation(children.offsets(), children.targets(), matrix));
+			distances = matrix;
 		}
+	}
 
-		// // test output
-		// for (Pair pair : distanceMap.keySet()) {
-		// System.out.println(pair + ": " + distanceMap.get(pair));
-		// }
+	/**
+	 * Returns the distances between the nodes.
+	 * 
+	 * @return distances or null, if they are not computed yet
+	 */
+	DistanceStore getDistanceStore() {
+		return distances;
+	}
+
+	/**
+	 * Returns true if the distances are computed on demand for every target.
+	 * 
+	 * @return true, if the distances are lazy
+	 */
+	public boolean hasLazyDistances() {
+		return distances instanceof TargetDistanceOracle;
 	}
 
 	/**
@@ -161,56 +398,663 @@ public class RCSGraph implements Serializable {
 	 */
 	public void buildLevelGraph() {
 		// 2 Phasen: Erste Leveln, dann bauen
-		root.setLevel(0);
-		int level = 0;
-		RCSNode node;
-		LinkedList<RCSNode> queue = new LinkedList<RCSNode>();
-
-		queue.offer(root);
-		while (queue.size() > 0) {
-			node = (RCSNode) queue.removeFirst();
-			for (RCSNode child : node.getChildren()) {
-				if (child.getLevel() == -1) { // not explored yet
-					queue.addLast(child);
-					child.setLevel(node.getLevel() + 1);
-					// System.out.println(child.getLabel()+":
-					// Level="+child.getLevel());
+		levels = new int[nodes.size()];
+		Arrays.fill(levels, -1); // level not set
+		levels[root.getIndex()] = 0;
+		int[] queue = new int[nodes.size()];
+		int head = 0, tail = 0;
+
+		queue[tail++] = root.getIndex();
+		while (head < tail) {
+			int node = queue[head++];
+			for (int i = children.start(node); i < children.end(node); i++) {
+				int child = children.target(i);
+				if (levels[child] == -1) { // not explored yet
+					queue[tail++] = child;
+					levels[child] = levels[node] + 1;
 				}
 			}
 		}
 
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
-			for (RCSNode child : node.getChildren()) {
-				if (child.getLevel() == node.getLevel() + 1) {
-					node.addLevelChildren(child);
-					child.addLevelParent(node);
+		buildLevelAdjacency();
+		degrees = null;
+		leavesCounts = null;
+		subtreeSizes = null;
+	}
+
+	/**
+	 * Builds the children and parents in the levelgraph from the levels. A link
+	 * belongs to the levelgraph if it leads from one level to the next.
+	 */
+	private void buildLevelAdjacency() {
+		IntList sources = new IntList();
+		IntList targets = new IntList();
+		for (int node = 0; node < nodes.size(); node++) {
+			for (int i = children.start(node); i < children.end(node); i++) {
+				int child = children.target(i);
+				if (levels[child] == levels[node] + 1) {
+					sources.add(node);
+					targets.add(child);
 				}
 			}
 		}
+		levelChildren = Adjacency.build(nodes.size(), sources, targets);
+		levelParents = Adjacency.build(nodes.size(), targets, sources);
 	}
 
 	/**
-	 * This method will add degrees to all nodes.
+	 * This method will add degrees to all nodes. The leaf counts and subtree sizes
+	 * are computed in the same pass.
 	 */
 	public void addNodeDegrees() {
-		root.getDegree();
-		// System.out.println("Rang der Wurzel: " + root.getDegree());
-		// System.out.println("Anzahl Elemente: " + nodeMap.size());
-		int links = 0;
-		for (Integer id : nodeMap.keySet()) {
-			RCSNode node = nodeMap.get(id);
-			links += node.getChildren().size();
-		}
-		// System.out.println("Links: " + links);
+		computeSubtreeProperties();
 	}
 
 	/**
 	 * This method will add to each node the number of leaves beneath it in the
-	 * levelgraph.
+	 * levelgraph. Nothing has to be done if {@link #addNodeDegrees()} was called
+	 * before.
 	 */
 	public void addLeavesCount() {
-		root.getLeavesCount();
+		if (leavesCounts == null)
+			computeSubtreeProperties();
+	}
+
+	/**
+	 * Computes the degrees, leaf counts and subtree sizes of all nodes in one
+	 * iterative pass. The children of a node in the levelgraph are always one
+	 * level deeper, so the nodes are sorted by their levels with a counting sort
+	 * and computed from the deepest level to the root. Nodes that cannot be
+	 * reached from the root have the level -1 and come last.
+	 */
+	private void computeSubtreeProperties() {
+		int size = nodes.size();
+		int maxLevel = -1;
+		for (int node = 0; node < size; node++) {
+			maxLevel = Math.max(maxLevel, levels[node]);
+		}
+		// counting sort by level, level -1 is in bucket 0
+		int[] bucketStarts = new int[maxLevel + 3];
+		for (int node = 0; node < size; node++) {
+			bucketStarts[levels[node] + 2]++;
+		}
+		for (int i = 1; i < bucketStarts.length; i++) {
+			bucketStarts[i] += bucketStarts[i - 1];
+		}
+		int[] order = new int[size];
+		for (int node = 0; node < size; node++) {
+			order[bucketStarts[levels[node] + 1]++] = node;
+		}
+
+		degrees = new int[size];
+		leavesCounts = new int[size];
+		subtreeSizes = new int[size];
+		for (int i = size - 1; i >= 0; i--) {
+			computeSubtreeProperties(order[i]);
+		}
+	}
+
+	/**
+	 * Computes the degree, leaf count and subtree size of a node from the values
+	 * of its children in the levelgraph.
+	 * 
+	 * <p>
+	 * The degree is the number of successors the node has in the levelgraph plus
+	 * himself, where a node that can be reached on several ways is counted once
+	 * for every way. The leaf count is the number of leaves under the node, 1 if
+	 * the node itself is a leaf. The subtree size counts every node only once: it
+	 * is the number of nodes in the spanning tree in which every node hangs under
+	 * its first parent in the levelgraph (see {@link #getPrimaryParent(int)}).
+	 * 
+	 * @param node
+	 *            the index of the node
+	 */
+	private void computeSubtreeProperties(int node) {
+		int degree = 1;
+		int leaves = levelChildren.degree(node) == 0 ? 1 : 0;
+		int subtreeSize = 1;
+		for (int i = levelChildren.start(node); i < levelChildren.end(node); i++) {
+			int child = levelChildren.target(i);
+			degree += degrees[child];
+			leaves += leavesCounts[child];
+			if (getPrimaryParent(child) == node)
+				subtreeSize += subtreeSizes[child];
+		}
+		degrees[node] = degree;
+		leavesCounts[node] = leaves;
+		subtreeSizes[node] = subtreeSize;
+	}
+
+	/**
+	 * Returns the first parent of a node in the levelgraph.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return the index of the parent or -1, if the node has no parent in the
+	 *         levelgraph
+	 */
+	private int getPrimaryParent(int node) {
+		if (levelParents.degree(node) == 0)
+			return -1;
+		return levelParents.target(levelParents.start(node));
+	}
+
+	/**
+	 * Adds a link from one node to another. The distances, the levelgraph, the
+	 * degrees and the leaf counts are repaired only where the new link can change
+	 * them, so the graph does not have to be built again.
+	 * 
+	 * @param parentID
+	 *            the ID of the node that links to the child
+	 * @param childID
+	 *            the ID of the child
+	 * @return true, if the link was added; false, if a node does not exist or the
+	 *         link exists already
+	 */
+	public boolean addLink(int parentID, int childID) {
+		int parent = nodeIndex.get(parentID);
+		int child = nodeIndex.get(childID);
+		if (parent == IntIndexMap.NOT_FOUND || child == IntIndexMap.NOT_FOUND || children.contains(parent, child))
+			return false;
+		insertLink(parent, child);
+		return true;
+	}
+
+	/**
+	 * Removes a link from one node to another. The distances, the levelgraph, the
+	 * degrees and the leaf counts are repaired only where the removed link can
+	 * change them. A node that is not linked from anywhere else stays in the graph
+	 * but cannot be reached from the root any more.
+	 * 
+	 * @param parentID
+	 *            the ID of the node that links to the child
+	 * @param childID
+	 *            the ID of the child
+	 * @return true, if the link was removed; false, if there is no such link
+	 */
+	public boolean removeLink(int parentID, int childID) {
+		int parent = nodeIndex.get(parentID);
+		int child = nodeIndex.get(childID);
+		if (parent == IntIndexMap.NOT_FOUND || child == IntIndexMap.NOT_FOUND || !children.contains(parent, child))
+			return false;
+		deleteLink(parent, child);
+		return true;
+	}
+
+	/**
+	 * Moves a node with everything beneath it from one parent to another.
+	 * 
+	 * @param nodeID
+	 *            the ID of the node to move
+	 * @param oldParentID
+	 *            the ID of the current parent
+	 * @param newParentID
+	 *            the ID of the new parent
+	 * @return true, if the node was moved; false, if a node does not exist, the
+	 *         old link does not exist or the new link exists already
+	 */
+	public boolean moveSubtree(int nodeID, int oldParentID, int newParentID) {
+		int node = nodeIndex.get(nodeID);
+		int oldParent = nodeIndex.get(oldParentID);
+		int newParent = nodeIndex.get(newParentID);
+		if (node == IntIndexMap.NOT_FOUND || oldParent == IntIndexMap.NOT_FOUND
+				|| newParent == IntIndexMap.NOT_FOUND || !children.contains(oldParent, node)
+				|| children.contains(newParent, node))
+			return false;
+		// add the new link first, so the subtree is never cut off from the root
+		insertLink(newParent, node);
+		deleteLink(oldParent, node);
+		return true;
+	}
+
+	/**
+	 * Renames a node.
+	 * 
+	 * @param id
+	 *            the ID of the node
+	 * @param label
+	 *            the new label
+	 * @return true, if the node was renamed; false, if it does not exist
+	 */
+	public boolean renameNode(int id, String label) {
+		int node = nodeIndex.get(id);
+		if (node == IntIndexMap.NOT_FOUND)
+			return false;
+		nodes.get(node).setLabel(label);
+		if (labelWords != null) {
+			int difference = countWords(label) - labelWords[node];
+			labelWords[node] += difference;
+			for (int i = parents.start(node); i < parents.end(node); i++) {
+				int parent = parents.target(i);
+				childLabelWords[parent] += difference;
+				if (minimalLatencies != null && minimalLatencies[parent] != -1)
+					computeMinimalLatency(parent, timeToThink);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds a link and repairs the properties that depend on it.
+	 * 
+	 * @param parent
+	 *            the index of the parent
+	 * @param child
+	 *            the index of the child
+	 */
+	private void insertLink(int parent, int child) {
+		children = children.withEdge(parent, child);
+		parents = parents.withEdge(child, parent);
+		updateLabelStatistics(parent, child, true);
+
+		if (distances instanceof TargetDistanceOracle) {
+			((TargetDistanceOracle) distances).linkChanged(parents.offsets(), parents.targets(), parent, child, true);
+		} else if (distances != null) {
+			DistanceMatrix matrix = ((DistanceMatrix) distances).toMutable();
+			distances = matrix;
+			// every path over the new link is a path to the parent plus a path
+			// from the child
+			IntList sources = new IntList();
+			IntList targets = new IntList();
+			for (int node = 0; node < nodes.size(); node++) {
+				if (matrix.getDistance(node, parent) != DistanceMatrix.UNREACHABLE)
+					sources.add(node);
+				if (matrix.getDistance(child, node) != DistanceMatrix.UNREACHABLE)
+					targets.add(node);
+			}
+			for (int i = 0; i < sources.size(); i++) {
+				int source = sources.get(i);
+				int toParent = matrix.getDistance(source, parent) + 1;
+				for (int j = 0; j < targets.size(); j++) {
+					int target = targets.get(j);
+					int distance = toParent + matrix.getDistance(child, target);
+					int old = matrix.getDistance(source, target);
+					if (old == DistanceMatrix.UNREACHABLE || distance < old)
+						matrix.setDistance(source, target, distance);
+				}
+			}
+		}
+
+		if (levels != null) {
+			IntList changed = new IntList();
+			if (levels[parent] != -1 && (levels[child] == -1 || levels[child] > levels[parent] + 1)) {
+				// the levels can only decrease, so a BFS from the child is enough
+				levels[child] = levels[parent] + 1;
+				changed.add(child);
+				for (int head = 0; head < changed.size(); head++) {
+					int node = changed.get(head);
+					for (int i = children.start(node); i < children.end(node); i++) {
+						int next = children.target(i);
+						if (levels[next] == -1 || levels[next] > levels[node] + 1) {
+							levels[next] = levels[node] + 1;
+							changed.add(next);
+						}
+					}
+				}
+			}
+			repairLevelGraph(parent, child, changed);
+		}
+	}
+
+	/**
+	 * Removes a link and repairs the properties that depend on it.
+	 * 
+	 * @param parent
+	 *            the index of the parent
+	 * @param child
+	 *            the index of the child
+	 */
+	private void deleteLink(int parent, int child) {
+		int[] affectedSources = null;
+		if (distances instanceof DistanceMatrix) {
+			// only the rows whose shortest paths can use the link must be computed
+			// again
+			DistanceMatrix matrix = (DistanceMatrix) distances;
+			IntList sources = new IntList();
+			for (int node = 0; node < nodes.size(); node++) {
+				int toParent = matrix.getDistance(node, parent);
+				if (toParent != DistanceMatrix.UNREACHABLE && matrix.getDistance(node, child) == toParent + 1)
+					sources.add(node);
+			}
+			affectedSources = sources.toArray();
+		}
+
+		children = children.withoutEdge(parent, child);
+		parents = parents.withoutEdge(child, parent);
+		updateLabelStatistics(parent, child, false);
+
+		if (distances instanceof TargetDistanceOracle) {
+			((TargetDistanceOracle) distances).linkChanged(parents.offsets(), parents.targets(), parent, child, false);
+		} else if (affectedSources != null && affectedSources.length > 0) {
+			DistanceMatrix matrix = ((DistanceMatrix) distances).toMutable();
+			distances = matrix;
+			ForkJoinPool.commonPool()
+					.invoke(new DistanceComputation(children.offsets(), children.targets(), matrix, affectedSources));
+		}
+
+		if (levels != null) {
+			IntList changed = new IntList();
+			if (levels[parent] != -1 && levels[child] == levels[parent] + 1 && !hasLevelParent(child))
+				raiseLevels(child, changed);
+			repairLevelGraph(parent, child, changed);
+		}
+	}
+
+	/**
+	 * Checks if a node has a parent on the level above its own level.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return true, if the node has such a parent
+	 */
+	private boolean hasLevelParent(int node) {
+		for (int i = parents.start(node); i < parents.end(node); i++) {
+			if (levels[parents.target(i)] != -1 && levels[parents.target(i)] == levels[node] - 1)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the levels again after a node lost its last parent on the level
+	 * above. First all nodes are collected that only have parents on the level
+	 * above in this region, then their levels are computed with a BFS that starts
+	 * at the parents outside of the region.
+	 * 
+	 * @param start
+	 *            the index of the node that lost its last parent on the level
+	 *            above
+	 * @param changed
+	 *            the list the indices of the collected nodes are added to
+	 */
+	private void raiseLevels(int start, IntList changed) {
+		boolean[] affected = new boolean[nodes.size()];
+		int[] seen = new int[nodes.size()];
+		int layerNumber = 0;
+		IntList layer = new IntList();
+		affected[start] = true;
+		layer.add(start);
+		changed.add(start);
+		while (!layer.isEmpty()) {
+			// a candidate can only be checked after the whole layer above is marked
+			layerNumber++;
+			IntList candidates = new IntList();
+			for (int i = 0; i < layer.size(); i++) {
+				int node = layer.get(i);
+				for (int j = children.start(node); j < children.end(node); j++) {
+					int child = children.target(j);
+					if (levels[child] == levels[node] + 1 && !affected[child] && seen[child] != layerNumber) {
+						seen[child] = layerNumber;
+						candidates.add(child);
+					}
+				}
+			}
+			layer = new IntList();
+			for (int i = 0; i < candidates.size(); i++) {
+				int candidate = candidates.get(i);
+				boolean supported = false;
+				for (int j = parents.start(candidate); j < parents.end(candidate); j++) {
+					int parent = parents.target(j);
+					if (!affected[parent] && levels[parent] == levels[candidate] - 1) {
+						supported = true;
+						break;
+					}
+				}
+				if (!supported) {
+					affected[candidate] = true;
+					layer.add(candidate);
+					changed.add(candidate);
+				}
+			}
+		}
+
+		// the nearest parents outside of the region are the seeds of the BFS
+		long[] seeds = new long[changed.size()];
+		int seedCount = 0;
+		for (int i = 0; i < changed.size(); i++) {
+			int node = changed.get(i);
+			int level = Integer.MAX_VALUE;
+			for (int j = parents.start(node); j < parents.end(node); j++) {
+				int parent = parents.target(j);
+				if (!affected[parent] && levels[parent] != -1)
+					level = Math.min(level, levels[parent] + 1);
+			}
+			if (level != Integer.MAX_VALUE)
+				seeds[seedCount++] = ((long) level << 32) | node;
+		}
+		for (int i = 0; i < changed.size(); i++) {
+			levels[changed.get(i)] = -1;
+		}
+		Arrays.sort(seeds, 0, seedCount);
+
+		// the seeds and the queue are merged, so the nodes are taken in the order
+		// of their levels and every node gets the first level it is taken with
+		IntList queue = new IntList();
+		IntList queueLevels = new IntList();
+		int head = 0;
+		int nextSeed = 0;
+		while (nextSeed < seedCount || head < queue.size()) {
+			int node;
+			int level;
+			if (head < queue.size()
+					&& (nextSeed == seedCount || queueLevels.get(head) < (int) (seeds[nextSeed] >>> 32))) {
+				node = queue.get(head);
+				level = queueLevels.get(head++);
+			} else {
+				node = (int) seeds[nextSeed];
+				level = (int) (seeds[nextSeed++] >>> 32);
+			}
+			if (levels[node] != -1)
+				continue;
+			levels[node] = level;
+			for (int j = children.start(node); j < children.end(node); j++) {
+				int child = children.target(j);
+				if (affected[child] && levels[child] == -1) {
+					queue.add(child);
+					queueLevels.add(level + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the levelgraph again after a link was added or removed and repairs
+	 * the degrees and leaf counts of the nodes above the change.
+	 * 
+	 * @param parent
+	 *            the index of the parent of the link
+	 * @param child
+	 *            the index of the child of the link
+	 * @param changed
+	 *            the indices of the nodes whose levels may have changed
+	 */
+	private void repairLevelGraph(int parent, int child, IntList changed) {
+		if (changed.isEmpty() && levels[child] != levels[parent] + 1)
+			return; // the levelgraph is the same
+		if (degrees == null) {
+			buildLevelAdjacency();
+			return;
+		}
+
+		// the parents in the levelgraph can only change for the child of the link,
+		// the changed nodes and their children. The subtrees of their old and new
+		// first parents change.
+		IntList reparented = new IntList();
+		reparented.add(child);
+		for (int i = 0; i < changed.size(); i++) {
+			int node = changed.get(i);
+			reparented.add(node);
+			for (int j = children.start(node); j < children.end(node); j++) {
+				reparented.add(children.target(j));
+			}
+		}
+		int[] oldPrimaryParents = new int[reparented.size()];
+		for (int i = 0; i < reparented.size(); i++) {
+			oldPrimaryParents[i] = getPrimaryParent(reparented.get(i));
+		}
+
+		buildLevelAdjacency();
+
+		// only nodes whose children in the levelgraph changed and the nodes above
+		// them can get another degree, leaf count or subtree size
+		boolean[] dirty = new boolean[nodes.size()];
+		IntList queue = new IntList();
+		markDirty(parent, dirty, queue);
+		for (int i = 0; i < changed.size(); i++) {
+			int node = changed.get(i);
+			markDirty(node, dirty, queue);
+			for (int j = parents.start(node); j < parents.end(node); j++) {
+				markDirty(parents.target(j), dirty, queue);
+			}
+		}
+		for (int i = 0; i < reparented.size(); i++) {
+			markDirty(oldPrimaryParents[i], dirty, queue);
+			markDirty(getPrimaryParent(reparented.get(i)), dirty, queue);
+		}
+		for (int head = 0; head < queue.size(); head++) {
+			int node = queue.get(head);
+			for (int j = levelParents.start(node); j < levelParents.end(node); j++) {
+				markDirty(levelParents.target(j), dirty, queue);
+			}
+		}
+
+		// the nodes are computed from the deepest level to the root
+		long[] order = new long[queue.size()];
+		for (int i = 0; i < queue.size(); i++) {
+			int node = queue.get(i);
+			order[i] = ((long) -levels[node] << 32) | node;
+		}
+		Arrays.sort(order);
+		for (long entry : order) {
+			computeSubtreeProperties((int) entry);
+		}
+	}
+
+	private static void markDirty(int node, boolean[] dirty, IntList queue) {
+		if (node != -1 && !dirty[node]) {
+			dirty[node] = true;
+			queue.add(node);
+		}
+	}
+
+	/**
+	 * Returns the level of a node in the levelgraph or -1, if the levelgraph is not
+	 * built yet or the node cannot be reached from the root.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return level
+	 */
+	int getLevel(int node) {
+		return levels == null ? -1 : levels[node];
+	}
+
+	/**
+	 * Returns the degree of a node.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return degree
+	 * @see RCSNode#getDegree()
+	 */
+	int getDegree(int node) {
+		if (levelChildren == null)
+			return 1;
+		if (degrees == null)
+			computeSubtreeProperties();
+		return degrees[node];
+	}
+
+	/**
+	 * Returns the number of leaves under a node.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return number of leaves
+	 * @see RCSNode#getLeavesCount()
+	 */
+	int getLeavesCount(int node) {
+		if (levelChildren == null)
+			return 1;
+		if (leavesCounts == null)
+			computeSubtreeProperties();
+		return leavesCounts[node];
+	}
+
+	/**
+	 * Returns the number of nodes in the subtree of a node.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return subtree size
+	 * @see RCSNode#getSubtreeSize()
+	 */
+	int getSubtreeSize(int node) {
+		if (levelChildren == null)
+			return 1;
+		if (subtreeSizes == null)
+			computeSubtreeProperties();
+		return subtreeSizes[node];
+	}
+
+	/**
+	 * Returns the children of all nodes.
+	 * 
+	 * @return children or null, if the graph is not built yet
+	 */
+	Adjacency getChildAdjacency() {
+		return children;
+	}
+
+	/**
+	 * Returns the parents of all nodes.
+	 * 
+	 * @return parents or null, if the graph is not built yet
+	 */
+	Adjacency getParentAdjacency() {
+		return parents;
+	}
+
+	/**
+	 * Returns the children of all nodes in the levelgraph.
+	 * 
+	 * @return children or null, if the levelgraph is not built yet
+	 */
+	Adjacency getLevelChildAdjacency() {
+		return levelChildren;
+	}
+
+	/**
+	 * Returns the parents of all nodes in the levelgraph.
+	 * 
+	 * @return parents or null, if the levelgraph is not built yet
+	 */
+	Adjacency getLevelParentAdjacency() {
+		return levelParents;
+	}
+
+	/**
+	 * Returns a read-only list view on the neighbours of a node.
+	 * 
+	 * @param adjacency
+	 *            the adjacency that holds the neighbours
+	 * @param node
+	 *            the index of the node
+	 * @return neighbours of the node
+	 */
+	List<RCSNode> nodeList(Adjacency adjacency, int node) {
+		return new NodeListView(adjacency, adjacency.start(node), adjacency.degree(node));
+	}
+
+	/**
+	 * Returns the node with the given dense index.
+	 * 
+	 * @param index
+	 *            the index of the node
+	 * @return node
+	 */
+	RCSNode getNodeByIndex(int index) {
+		return nodes.get(index);
 	}
 
 	/**
@@ -223,12 +1067,21 @@ public class RCSGraph implements Serializable {
 	}
 
 	/**
-	 * Returns the node map.
+	 * Returns all nodes of the graph in the order of their dense indices.
+	 *
+	 * @return a read-only list of the nodes
+	 */
+	public List<RCSNode> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * Returns the number of nodes in the graph.
 	 *
-	 * @return the node map
+	 * @return number of nodes
 	 */
-	public HashMap<Integer, RCSNode> getNodeMap() {
-		return nodeMap;
+	public int getNodeCount() {
+		return nodes.size();
 	}
 
 	/**
@@ -236,10 +1089,23 @@ public class RCSGraph implements Serializable {
 	 * 
 	 * @param id
 	 *            id of the wanted node
-	 * @return wanted node
+	 * @return wanted node or null, if there is no node with this id
 	 */
 	public RCSNode getNodeByID(int id) {
-		return nodeMap.get(new Integer(id));
+		int index = nodeIndex.get(id);
+		return index == IntIndexMap.NOT_FOUND ? null : nodes.get(index);
+	}
+
+	/**
+	 * Returns the dense index of a node by its id
+	 * 
+	 * @param id
+	 *            id of the wanted node
+	 * @return index of the node or -1, if there is no node with this id
+	 * @see RCSNode#getIndex()
+	 */
+	public int getIndexByID(int id) {
+		return nodeIndex.get(id);
 	}
 
 	/**
@@ -250,11 +1116,9 @@ public class RCSGraph implements Serializable {
 	public int computeNodesToInspect() {
 		int sumLevel = 0;
 		int sumLeaves = 0;
-		RCSNode node;
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
-			if (node.isLeaf()) {
-				sumLevel += node.getLevel();
+		for (int node = 0; node < nodes.size(); node++) {
+			if (levelChildren.degree(node) == 0) {
+				sumLevel += levels[node];
 				sumLeaves++;
 			}
 		}
@@ -262,19 +1126,127 @@ public class RCSGraph implements Serializable {
 	}
 
 	/**
-	 * This method computes the minimal latency for all nodes
+	 * This method computes the minimal latency for all nodes. The words in the
+	 * labels are only counted the first time, so another time to think costs one
+	 * pass over an int array.
 	 * 
 	 * @param timeToThink
 	 *            the time a user will at least need to think at the node
 	 */
 	public void computeMinimalLatencies(int timeToThink) {
-		RCSNode node;
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
-			node.computeMinimalLatency(timeToThink);
+		this.timeToThink = timeToThink;
+		minimalLatencies = minimalLatenciesFor(timeToThink);
+	}
+
+	/**
+	 * Computes the minimal latencies of all nodes for a time to think without
+	 * changing the minimal latencies of the nodes.
+	 * 
+	 * @param timeToThink
+	 *            the time a user will at least need to think at the node
+	 * @return the minimal latencies indexed by the dense indices of the nodes
+	 */
+	int[] minimalLatenciesFor(int timeToThink) {
+		synchronized (this) {
+			if (childLabelWords == null)
+				computeLabelStatistics();
+		}
+		int[] latencies = new int[nodes.size()];
+		for (int node = 0; node < latencies.length; node++) {
+			latencies[node] = (childLabelWords[node] / WORDS_PER_SECOND) * 1000 + timeToThink * children.degree(node);
+		}
+		return latencies;
+	}
+
+	/**
+	 * Computes the minimal latency of one node.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @param timeToThink
+	 *            milliseconds the user needs to think
+	 * @see RCSNode#computeMinimalLatency(int)
+	 */
+	void computeMinimalLatency(int node, int timeToThink) {
+		if (childLabelWords == null)
+			computeLabelStatistics();
+		if (minimalLatencies == null) {
+			minimalLatencies = new int[nodes.size()];
+			Arrays.fill(minimalLatencies, -1);
+		}
+		minimalLatencies[node] = (childLabelWords[node] / WORDS_PER_SECOND) * 1000
+				+ timeToThink * children.degree(node);
+	}
+
+	/**
+	 * Returns the minimal latency of a node.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return minimal latency or -1, if it is not computed yet
+	 * @see RCSNode#getMinimalLatency()
+	 */
+	int getMinimalLatency(int node) {
+		return minimalLatencies == null ? -1 : minimalLatencies[node];
+	}
+
+	/**
+	 * Counts the words in the labels of all nodes and sums them up over the
+	 * children of every node.
+	 */
+	private void computeLabelStatistics() {
+		labelWords = new int[nodes.size()];
+		childLabelWords = new int[nodes.size()];
+		for (int node = 0; node < nodes.size(); node++) {
+			labelWords[node] = countWords(nodes.get(node).getLabel());
+		}
+		for (int node = 0; node < nodes.size(); node++) {
+			int sum = 0;
+			for (int i = children.start(node); i < children.end(node); i++) {
+				sum += labelWords[children.target(i)];
+			}
+			childLabelWords[node] = sum;
 		}
 	}
 
+	/**
+	 * Counts the words in a label. Words are separated by blanks and
+	 * underscores.
+	 * 
+	 * @param label
+	 *            the label
+	 * @return number of words, at least 1
+	 */
+	private static int countWords(String label) {
+		int words = 1;
+		for (int i = 0; i + 1 < label.length(); i++) {
+			char c = label.charAt(i);
+			char next = label.charAt(i + 1);
+			if ((c == ' ' || c == '_') && next != ' ' && next != '_')
+				words++;
+		}
+		return words;
+	}
+
+	/**
+	 * Updates the label statistics and the minimal latency of a node after a link
+	 * to a child was added or removed.
+	 * 
+	 * @param parent
+	 *            the index of the parent
+	 * @param child
+	 *            the index of the child
+	 * @param added
+	 *            true, if the link was added; false, if it was removed
+	 */
+	private void updateLabelStatistics(int parent, int child, boolean added) {
+		if (childLabelWords == null)
+			return;
+		childLabelWords[parent] += added ? labelWords[child] : -labelWords[child];
+		if (minimalLatencies != null && minimalLatencies[parent] != -1)
+			computeMinimalLatency(parent, timeToThink);
+	}
+
 	/**
 	 * Gets the distance between to nodes in the levelgraph. If the node is not
 	 * reachable, the distance will be -1.
@@ -286,182 +1258,113 @@ public class RCSGraph implements Serializable {
 	 * @return distance
 	 */
 	public int getDistance(int source, int target) {
-		int distance = distanceMap.containsKey(new PairOfInt(source, target))
-				? distanceMap.get(new PairOfInt(source, target))
-				: -1;
-		return distance;
-
+		RCSNode sourceNode = getNodeByID(source);
+		RCSNode targetNode = getNodeByID(target);
+		if (sourceNode == null || targetNode == null)
+			return -1;
+		return getDistance(sourceNode, targetNode);
 	}
 
 	/**
-	 * Returns the coverage of the experiment for this graph
+	 * Gets the distance between to nodes in the levelgraph. If the node is not
+	 * reachable, the distance will be -1. This lookup uses the dense indices of
+	 * the nodes and does not create any objects.
 	 * 
-	 * @return coverage of the experiment
+	 * @param source
+	 *            the source node
+	 * @param target
+	 *            the target node
+	 * @return distance
 	 */
-	public double getCoverage() {
-		return root.getCoverage();
+	public int getDistance(RCSNode source, RCSNode target) {
+		return distances.getDistance(source.getIndex(), target.getIndex());
 	}
 
 	/**
-	 * Returns the HotList: That means a list of all nodes that should be tested in
-	 * a further experiment to increase the coverage by maximum. The nodes in this
-	 * list are ordered to increase the coverage most effectivly.
+	 * Returns the distances from all nodes to the given target, indexed by the
+	 * dense indices of the nodes. A node that cannot reach the target has the
+	 * distance -1. The returned array must not be modified.
 	 * 
-	 * @return HotList
+	 * @param target
+	 *            the target node
+	 * @return distances to the target
 	 */
-	@SuppressWarnings("rawtypes")
-	public LinkedList[] getHotList() {
-		LinkedList[] hotList = new LinkedList[2];
-		LinkedList<RCSNode> leaves = new LinkedList<RCSNode>();
-		LinkedList<Double> gains = new LinkedList<Double>();
-		RCSNode node;
-
-		/* get the number of all leaves that are not already targets */
-		int numberOfLeaves = root.getLeavesCount();
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
-			node.setSimulatedVisits(node.getVisitsOnOptimalPath());
-			if (node.isTarget())
-				numberOfLeaves--;
-		}
-
-		/* compute hotlist */
-		for (int i = 0; i < numberOfLeaves; i++) {
-			node = root;
-			while (!node.isLeaf()) {
-				RCSNode nextNode = node.getLevelChildren().get(0);
-				for (RCSNode child : node.getLevelChildren()) {
-					if (child.getSimulatedCoverage() < nextNode.getSimulatedCoverage())
-						nextNode = child;
-					else if (child.getSimulatedCoverage() == nextNode.getSimulatedCoverage())
-						if (child.getLeavesCount() > nextNode.getLeavesCount())
-							nextNode = child;
-				}
-				node = nextNode;
-			}
-
-			RCSNode target = node;
-			leaves.offer(target);
-			int distFromNode;
-			int distFromChild;
-			LinkedList<RCSNode> queue = new LinkedList<RCSNode>();
-			queue.offer(root);
-			root.setSimulatedVisits(root.getSimulatedVisits() + 1);
-			while (queue.size() > 0) {
-				node = (RCSNode) queue.removeFirst();
-				distFromNode = getDistance(node.getID(), target.getID());
-				for (RCSNode child : node.getLevelChildren()) {
-					distFromChild = getDistance(child.getID(), target.getID());
-					if (distFromChild != -1 && distFromNode == (distFromChild + 1)) {
-						queue.offer(child);
-						child.setSimulatedVisits(child.getSimulatedVisits() + 1);
-					}
-				}
-			}
-			gains.offer(root.getSimulatedCoverage());
-			// System.out.println("Adding: "+target+", gain to:
-			// "+root.getSimulatedCoverage());
+	public int[] getDistancesTo(RCSNode target) {
+		if (distances instanceof TargetDistanceOracle)
+			return ((TargetDistanceOracle) distances).getDistancesTo(target.getIndex());
+		int[] column = new int[nodes.size()];
+		for (int i = 0; i < column.length; i++) {
+			column[i] = distances.getDistance(i, target.getIndex());
 		}
+		return column;
+	}
 
-		// System.out.println(hotList);
-		hotList[0] = leaves;
-		hotList[1] = gains;
-		return hotList;
+	/**
+	 * Returns the coverage of the experiment for this graph
+	 * 
+	 * @return coverage of the experiment
+	 */
+	public double getCoverage() {
+		AnalysisResult analysis = this.analysis;
+		return analysis == null ? 0 : analysis.getCoverage();
 	}
 
 	/**
-	 * Resets the properties of this graph's nodes: - explored and isTarget to false
-	 * - distRating, simulatedVisits, visits, visitsOnOptimalPaths t0 0 -
-	 * minimalLatency to -1
+	 * Resets the properties of this graph's nodes: - explored to false
+	 * - minimalLatency to -1 - drops the current analysis
 	 */
 	public void resetGraphProperties() {
-		RCSNode node;
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
+		for (RCSNode node : nodes) {
 			node.resetProperties();
 		}
-		systematicSearchingLog = "";
+		if (minimalLatencies != null)
+			Arrays.fill(minimalLatencies, -1);
+		analysis = null;
 	}
 
 	/**
 	 * Resets the analysis of the experiment on this graph's nodes: - explored to
-	 * false - distRating, simulatedVisits, visits, visitsOnOptimalPaths t0 0 -
-	 * minimalLatency to -1 Initializes the rating-arrays to size countTask
-	 * 
-	 * @param countTasks
-	 *            number of tasks in the experiment
+	 * false - minimalLatency to -1 - drops the current analysis
 	 */
-	public void resetAnalysis(int countTasks) {
-		RCSNode node;
-		for (Integer id : nodeMap.keySet()) {
-			node = nodeMap.get(id);
+	public void resetAnalysis() {
+		for (RCSNode node : nodes) {
 			node.resetAnalysis();
-			node.initRatings(countTasks);
 		}
-		systematicSearchingLog = "";
+		if (minimalLatencies != null)
+			Arrays.fill(minimalLatencies, -1);
+		analysis = null;
 	}
 
 	/**
-	 * Returns the badlist. This list includes all nodes in order of their malus
+	 * Returns the analysis the nodes, paths and tasks of this graph show.
 	 * 
-	 * @return badlist
+	 * @return the current analysis or null
 	 */
-	public LinkedList<RCSNode> getBadList() {
-		RCSNode node;
-		int maxMalus;
-		int maxLatencyWeight;
-		int idOfMax;
-		LinkedList<RCSNode> badList = new LinkedList<RCSNode>();
-		for (int i = 0; i < nodeMap.size(); i++) {
-			maxMalus = 0;
-			maxLatencyWeight = 0;
-			idOfMax = -1;
-			for (Integer id : nodeMap.keySet()) {
-				node = nodeMap.get(id);
-				if (!badList.contains(node) && node.getCoverage() > 0) {
-					if (node.getMalus() > maxMalus) {
-						maxMalus = node.getMalus();
-						maxLatencyWeight = node.getLatencyWeight();
-						idOfMax = id;
-					} else if (node.getMalus() == maxMalus)
-						if (node.getLatencyWeight() > maxLatencyWeight) {
-							maxMalus = node.getMalus();
-							maxLatencyWeight = node.getLatencyWeight();
-							idOfMax = id;
-						}
-				}
-			}
-			if (idOfMax != -1) {
-				badList.offer(getNodeByID(idOfMax));
-
-				// System.out.println(
-				// i + ": " + getNodeByID(idOfMax).getLabel() + "> Malus: " +
-				// maxMalus + ", LatencyWeight: "
-				// + maxLatencyWeight + ", DistRating: " +
-				// getNodeByID(idOfMax).getDistRating());
-
-			}
-		}
-		return badList;
+	public AnalysisResult getAnalysis() {
+		return analysis;
 	}
 
 	/**
-	 * Adds the detection of systematic searching to the log
+	 * Sets the analysis the nodes, paths and tasks of this graph show.
 	 * 
-	 * @param detectionText
-	 *            information about the detection
+	 * @param analysis
+	 *            an analysis on this graph or null
 	 */
-	public void addDetectionOfSystematicSearching(String detectionText) {
-		systematicSearchingLog += detectionText;
+	public void setAnalysis(AnalysisResult analysis) {
+		if (analysis != null && analysis.getGraph() != this)
+			throw new IllegalArgumentException("The analysis belongs to another graph");
+		this.analysis = analysis;
 	}
 
 	/**
-	 * Returns the log about the detection of systematic searching
+	 * Returns the log about the detection of systematic searching of the
+	 * current analysis
 	 * 
 	 * @return systematicSearchingLog
 	 */
 	public String getSystematicSearchingLog() {
-		return systematicSearchingLog;
+		AnalysisResult analysis = this.analysis;
+		return analysis == null ? "" : analysis.getSystematicSearchingLog();
 	}
 
 	/**
@@ -478,9 +1381,11 @@ public class RCSGraph implements Serializable {
 		int columnsCount = countColumns(rows[0]);
 
 		root = new RCSNode(0, "Startseite");
-		nodeMap.put(new Integer(root.getID()), root);
+		addNode(root);
 		RCSNode[] parents = new RCSNode[columnsCount + 1];
 		parents[0] = root;
+		IntList linkSources = new IntList();
+		IntList linkTargets = new IntList();
 		int id = 1;
 		RCSNode node;
 
@@ -502,7 +1407,7 @@ public class RCSGraph implements Serializable {
 					int link_id = Integer.parseInt(columns[j].substring(3, bracket));
 					String label = columns[j].substring(bracket + 2, columns[j].length());
 					crossLinks[link_id] = new RCSNode(id, label);
-					nodeMap.put(new Integer(crossLinks[link_id].getID()), crossLinks[link_id]);
+					addNode(crossLinks[link_id]);
 					id++;
 				}
 			}
@@ -545,19 +1450,19 @@ public class RCSGraph implements Serializable {
 						}
 					}
 
+					addNode(node);
 					// parent is root
 					if (j == 0) {
-						node.addParent(root);
-						root.addChildren(node);
+						linkSources.add(root.getIndex());
 					} else {
-						node.addParent(parents[j - 1]);
-						parents[j - 1].addChildren(node);
+						linkSources.add(parents[j - 1].getIndex());
 					}
+					linkTargets.add(node.getIndex());
 					parents[j] = node;
-					nodeMap.put(new Integer(node.getID()), node);
 				}
 			}
 		}
+		setLinks(linkSources, linkTargets);
 		elements = id;
 		// System.out.println(elements);
 		// System.out.println(linkCounter+elements);
@@ -612,4 +1517,33 @@ public class RCSGraph implements Serializable {
 		columnsCount++;
 		return columnsCount;
 	}
+
+	/**
+	 * A read-only list of the nodes in a part of the target array of an
+	 * {@link Adjacency}.
+	 */
+	private class NodeListView extends AbstractList<RCSNode> implements RandomAccess {
+
+		private final Adjacency adjacency;
+		private final int start;
+		private final int size;
+
+		NodeListView(Adjacency adjacency, int start, int size) {
+			this.adjacency = adjacency;
+			this.start = start;
+			this.size = size;
+		}
+
+		@Override
+		public RCSNode get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			return nodes.get(adjacency.target(start + index));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
 }
@@ -5,10 +5,15 @@
 package de.upb.recalys.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This class defines the nodes that represent the pages in a website structure.
+ * The structure itself (links, levels, degrees and leaves) is stored in
+ * primitive arrays inside the {@link RCSGraph}, the analysis of an experiment
+ * in the current {@link AnalysisResult} of the graph, so a node is a view on
+ * its entries in these arrays.
  * 
  * @author danielbrumberg
  * @version 1.0
@@ -20,24 +25,10 @@ public class RCSNode implements Serializable {
 	 */
 	private static final long serialVersionUID = 4673374729212236698L;
 	private boolean explored;
-	private boolean isTarget = false;
-	private int degree = -1;
-	private int distRating = 0;
-	private int[] distRatingsPerTask;
 	private int id;
-	private int level;
-	private int leavesCount = -1;
-	private int simulatedVisits;
-	private int visits;
-	private int visitsOnOptimalPaths;
-	private int minimalLatency = -1;
+	private int index = -1;
+	private RCSGraph graph;
 	private String label;
-	private ArrayList<RCSNode> children;
-	private ArrayList<RCSNode> parents;
-	private ArrayList<RCSNode> levelChildren;
-	private ArrayList<RCSNode> levelParents;
-	private ArrayList<Integer> latencies;
-	private ArrayList<Integer>[] latenciesPerTask;
 
 	/**
 	 * Constructor: Creates a new Node
@@ -50,13 +41,7 @@ public class RCSNode implements Serializable {
 	public RCSNode(int id, String label) {
 		this.id = id;
 		this.label = label;
-		level = -1; // level not set
 		explored = false;
-		children = new ArrayList<RCSNode>();
-		parents = new ArrayList<RCSNode>();
-		levelChildren = new ArrayList<RCSNode>();
-		levelParents = new ArrayList<RCSNode>();
-		latencies = new ArrayList<Integer>();
 	}
 
 	/**
@@ -69,92 +54,95 @@ public class RCSNode implements Serializable {
 	}
 
 	/**
-	 * Returns this node's label
+	 * Returns this node's dense index in its graph. The indices of the nodes of
+	 * a graph run from 0 to the number of nodes minus one. A node that does not
+	 * belong to a graph has the index -1.
 	 * 
-	 * @return label
+	 * @return index
 	 */
-	public String getLabel() {
-		return label;
+	public int getIndex() {
+		return index;
 	}
 
 	/**
-	 * Returns this node's list of children
+	 * Sets the graph this node belongs to and this node's dense index in it
 	 * 
-	 * @return list of children
+	 * @param graph
+	 *            the graph of this node or null
+	 * @param index
+	 *            the index of this node
 	 */
-	public ArrayList<RCSNode> getChildren() {
-		return children;
+	void setIndex(RCSGraph graph, int index) {
+		this.graph = graph;
+		this.index = index;
 	}
 
 	/**
-	 * Returns this node's list of parents
+	 * Returns this node's label
 	 * 
-	 * @return list of parents
+	 * @return label
 	 */
-	public ArrayList<RCSNode> getParents() {
-		return parents;
+	public String getLabel() {
+		return label;
 	}
 
 	/**
-	 * Returns this node's list of children in the levelgraph
+	 * Sets this node's label
 	 * 
-	 * @return list of children
+	 * @param label
+	 *            the new label
 	 */
-	public ArrayList<RCSNode> getLevelChildren() {
-		return levelChildren;
+	void setLabel(String label) {
+		this.label = label;
 	}
 
 	/**
-	 * Returns this node's list of parents in the levelgraph
+	 * Returns this node's list of children
 	 * 
-	 * @return list of parents
+	 * @return list of children
 	 */
-	public ArrayList<RCSNode> getLevelParents() {
-		return levelParents;
+	public List<RCSNode> getChildren() {
+		return neighbours(graph == null ? null : graph.getChildAdjacency());
 	}
 
 	/**
-	 * Adds a child to the node's children list
+	 * Returns this node's list of parents
 	 * 
-	 * @param child
-	 *            child that shall be added
-	 * @return true, if adding was possible, else false
+	 * @return list of parents
 	 */
-	public boolean addChildren(RCSNode child) {
-		return children.add(child);
+	public List<RCSNode> getParents() {
+		return neighbours(graph == null ? null : graph.getParentAdjacency());
 	}
 
 	/**
-	 * Adds a parent to the node's children list
+	 * Returns this node's list of children in the levelgraph
 	 * 
-	 * @param parent
-	 *            parent that shall be added
-	 * @return true, if adding was possible, else false
+	 * @return list of children
 	 */
-	public boolean addParent(RCSNode parent) {
-		return parents.add(parent);
+	public List<RCSNode> getLevelChildren() {
+		return neighbours(graph == null ? null : graph.getLevelChildAdjacency());
 	}
 
 	/**
-	 * Adds a child to the node's levelgraph children list
+	 * Returns this node's list of parents in the levelgraph
 	 * 
-	 * @param child
-	 *            child that shall be added
-	 * @return true, if adding was possible, else false
+	 * @return list of parents
 	 */
-	public boolean addLevelChildren(RCSNode child) {
-		return levelChildren.add(child);
+	public List<RCSNode> getLevelParents() {
+		return neighbours(graph == null ? null : graph.getLevelParentAdjacency());
 	}
 
 	/**
-	 * Adds a parent to the node's levelgraph children list
+	 * Returns a read-only view on the neighbours of this node
 	 * 
-	 * @param parent
-	 *            parent that shall be added
-	 * @return true, if adding was possible, else false
+	 * @param adjacency
+	 *            the adjacency of the graph or null, if it is not built yet
+	 * @return list of neighbours
 	 */
-	public boolean addLevelParent(RCSNode parent) {
-		return levelParents.add(parent);
+	private List<RCSNode> neighbours(Adjacency adjacency) {
+		if (adjacency == null)
+			return Collections.emptyList();
+		return graph.nodeList(adjacency, index);
 	}
 
 	/**
@@ -182,29 +170,19 @@ public class RCSNode implements Serializable {
 	 * @return isMultipleLinked
 	 */
 	public boolean isMultipleLinked() {
-		if (parents.size() > 1)
+		if (graph != null && graph.getParentAdjacency() != null && graph.getParentAdjacency().degree(index) > 1)
 			return true;
 		else
 			return false;
 	}
 
-	/**
-	 * Sets the level of this node in the levelgraph
-	 * 
-	 * @param level
-	 *            level of this node in the levelgraph
-	 */
-	public void setLevel(int level) {
-		this.level = level;
-	}
-
 	/**
 	 * Returns the level of this node
 	 * 
 	 * @return level
 	 */
 	public int getLevel() {
-		return level;
+		return graph == null ? -1 : graph.getLevel(index);
 	}
 
 	/**
@@ -214,17 +192,7 @@ public class RCSNode implements Serializable {
 	 * @return degree
 	 */
 	public int getDegree() {
-		if (degree > -1)
-			return degree;
-		else if (levelChildren.size() > 0) {
-			int tempDegree = 0;
-			for (RCSNode child : getLevelChildren()) {
-				tempDegree += child.getDegree();
-			}
-			degree = tempDegree + 1;
-			return degree;
-		} else
-			return 1;
+		return graph == null ? 1 : graph.getDegree(index);
 	}
 
 	/**
@@ -234,19 +202,18 @@ public class RCSNode implements Serializable {
 	 * @return leavesCount
 	 */
 	public int getLeavesCount() {
-		if (leavesCount > -1)
-			return leavesCount;
-		else if (levelChildren.size() > 0) {
-			int temp = 0;
-			for (RCSNode child : getLevelChildren()) {
-				temp += child.getLeavesCount();
-			}
-			leavesCount = temp;
-			return leavesCount;
-		} else if (isLeaf())
-			return 1;
-		else
-			return 0;
+		return graph == null ? 1 : graph.getLeavesCount(index);
+	}
+
+	/**
+	 * Returns the number of nodes in this node's subtree including himself. In
+	 * contrast to the degree, every node is only counted once, under its first
+	 * parent in the levelgraph.
+	 * 
+	 * @return subtree size
+	 */
+	public int getSubtreeSize() {
+		return graph == null ? 1 : graph.getSubtreeSize(index);
 	}
 
 	/**
@@ -255,16 +222,17 @@ public class RCSNode implements Serializable {
 	 * @return coverage if this node
 	 */
 	public double getCoverage() {
-		return (double) visitsOnOptimalPaths / (double) getLeavesCount();
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getCoverage(index);
 	}
 
 	/**
-	 * Returns the simulated coverage of this node in this experiment
+	 * Returns the current analysis of this node's graph
 	 * 
-	 * @return simulated coverage if this node
+	 * @return the analysis or null
 	 */
-	public double getSimulatedCoverage() {
-		return (double) simulatedVisits / (double) getLeavesCount();
+	private AnalysisResult analysis() {
+		return graph == null ? null : graph.getAnalysis();
 	}
 
 	/**
@@ -273,7 +241,8 @@ public class RCSNode implements Serializable {
 	 * @return true if node is a leaf, false else
 	 */
 	public boolean isLeaf() {
-		if (levelChildren.isEmpty())
+		if (graph == null || graph.getLevelChildAdjacency() == null
+				|| graph.getLevelChildAdjacency().degree(index) == 0)
 			return true;
 		else
 			return false;
@@ -281,47 +250,30 @@ public class RCSNode implements Serializable {
 
 	/**
 	 * Computes the minimal latency in milliseconds an average user would need to
-	 * choose the next link at this node.
+	 * choose the next link at this node. The word counts of the labels are taken
+	 * from the graph.
 	 * 
 	 * @param time
 	 *            milliseconds the user needs to think
 	 */
 	public void computeMinimalLatency(int time) {
-		int labelWords = 0;
-		int wordsPerSecond = 2;
-		int timeToThink = time;
-
-		for (RCSNode child : getChildren()) {
-			String s = child.getLabel();
-			char[] chars = s.toCharArray();
-			labelWords++;
-			for (int i = 0; i < chars.length; i++) {
-				if (chars[i] == ' ' || chars[i] == '_')
-					if ((i + 1) < chars.length)
-						if (chars[i + 1] != ' ' && chars[i + 1] != '_')
-							labelWords++;
-			}
-		}
-
-		minimalLatency = (labelWords / wordsPerSecond) * 1000 + timeToThink * children.size();
-
+		if (graph != null)
+			graph.computeMinimalLatency(index, time);
 	}
 
 	/**
 	 * Returns the minimal latency in milliseconds an average user would need to
-	 * choose the next link at this node
+	 * choose the next link at this node. If the graph has an analysis, it is the
+	 * latency the analysis used, otherwise the one computed by
+	 * {@link #computeMinimalLatency(int)}.
 	 * 
-	 * @return minimalLatency
+	 * @return minimalLatency or -1, if it is not computed yet
 	 */
 	public int getMinimalLatency() {
-		return minimalLatency;
-	}
-
-	/**
-	 * Increase the counter for visits of this node
-	 */
-	public void visit() {
-		visits++;
+		AnalysisResult analysis = analysis();
+		if (analysis != null)
+			return analysis.getMinimalLatency(index);
+		return graph == null ? -1 : graph.getMinimalLatency(index);
 	}
 
 	/**
@@ -330,14 +282,8 @@ public class RCSNode implements Serializable {
 	 * @return number of visits
 	 */
 	public int getVisits() {
-		return visits;
-	}
-
-	/**
-	 * Increase the counter for visits on optimal paths of this node
-	 */
-	public void visitsOnOptimalPath() {
-		visitsOnOptimalPaths++;
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getVisits(index);
 	}
 
 	/**
@@ -346,32 +292,8 @@ public class RCSNode implements Serializable {
 	 * @return number of visits on optimal paths of this node
 	 */
 	public int getVisitsOnOptimalPath() {
-		return visitsOnOptimalPaths;
-	}
-
-	/**
-	 * Increases the current DistRating by 0, 1 or 2
-	 * 
-	 * @param value
-	 *            the value the DistRating of the node is increased by
-	 */
-	public void increaseDistRating(int value) {
-		if (value == 0 || value == 1 || value == 2)
-			distRating += value;
-		else
-			System.err.println("Increase of DistRating not valid");
-	}
-
-	/**
-	 * Adds the latency of the appearance of this node on an certain path to the
-	 * ArrayList of latencies
-	 * 
-	 * @param latency
-	 *            latency that will be added in milliseconds
-	 * @return true, if adding was successfull; false, if not
-	 */
-	public boolean addLatency(int latency) {
-		return latencies.add(new Integer(latency));
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getVisitsOnOptimalPath(index);
 	}
 
 	/**
@@ -380,7 +302,8 @@ public class RCSNode implements Serializable {
 	 * @return malus of this node
 	 */
 	public int getMalus() {
-		return distRating * degree;
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getMalus(index);
 	}
 
 	/**
@@ -390,51 +313,8 @@ public class RCSNode implements Serializable {
 	 * @return latency-weight
 	 */
 	public int getLatencyWeight() {
-		if (latencies.size() == 0)
-			return 0;
-		int middle = latencies.size() / 2;
-		if (latencies.size() % 2 == 1)
-			return latencies.get(middle);
-		else
-			return (latencies.get(middle - 1) + latencies.get(middle)) / 2;
-	}
-
-	/**
-	 * Sets the node as a target node for a task
-	 * 
-	 * @param target
-	 *            true, if node is target; false else
-	 */
-	public void setTarget(boolean target) {
-		isTarget = target;
-	}
-
-	/**
-	 * Returns if the node is a target for a task
-	 * 
-	 * @return isTarget
-	 */
-	public boolean isTarget() {
-		return isTarget;
-	}
-
-	/**
-	 * Sets the count of simulated visits
-	 * 
-	 * @param visits
-	 *            the new count of simulated visits
-	 */
-	public void setSimulatedVisits(int visits) {
-		simulatedVisits = visits;
-	}
-
-	/**
-	 * Returns the number of simulated visits
-	 * 
-	 * @return number of simulated visits
-	 */
-	public int getSimulatedVisits() {
-		return simulatedVisits;
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getLatencyWeight(index);
 	}
 
 	/**
@@ -447,33 +327,17 @@ public class RCSNode implements Serializable {
 	}
 
 	/**
-	 * Resets the properties of the node: - explored and isTarget to false -
-	 * distRating, simulatedVisits, visits, visitsOnOptimalPaths t0 0 -
-	 * minimalLatency to -1
+	 * Resets the properties of the node: explored to false
 	 */
 	public void resetProperties() {
 		explored = false;
-		isTarget = false;
-		distRating = 0;
-		simulatedVisits = 0;
-		visits = 0;
-		visitsOnOptimalPaths = 0;
-		minimalLatency = -1;
-		latencies = new ArrayList<Integer>();
 	}
 
 	/**
-	 * Resets the properties of the node: - explored to false - distRating,
-	 * simulatedVisits, visits, visitsOnOptimalPaths t0 0 - minimalLatency to -1
+	 * Resets the properties of the node: explored to false
 	 */
 	public void resetAnalysis() {
 		explored = false;
-		distRating = 0;
-		simulatedVisits = 0;
-		visits = 0;
-		visitsOnOptimalPaths = 0;
-		minimalLatency = -1;
-		latencies = new ArrayList<Integer>();
 	}
 
 	/**
@@ -484,11 +348,9 @@ public class RCSNode implements Serializable {
 	 * @return isChild
 	 */
 	public boolean isChild(RCSNode node) {
-		for (RCSNode n : getChildren()) {
-			if (node.equals(n))
-				return true;
-		}
-		return false;
+		if (graph == null || node.graph != graph || graph.getChildAdjacency() == null)
+			return false;
+		return graph.getChildAdjacency().contains(index, node.index);
 	}
 
 	/**
@@ -497,39 +359,8 @@ public class RCSNode implements Serializable {
 	 * @return distRating
 	 */
 	public int getDistRating() {
-		return distRating;
-	}
-
-	/**
-	 * Initializes the per-task-ratings
-	 * 
-	 * @param countTasks
-	 *            number of tasks
-	 */
-	public void initRatings(int countTasks) {
-		distRatingsPerTask = new int[countTasks];
-		latenciesPerTask = new ArrayList[countTasks];
-
-		for (int i = 0; i < countTasks; i++) {
-			distRatingsPerTask[i] = 0;
-			latenciesPerTask[i] = new ArrayList();
-		}
-	}
-
-	/**
-	 * Adds a visit for this node on a certain path. A node is visited if it is on a
-	 * path that belongs to this task.
-	 * 
-	 * @param taskID
-	 *            id of the task
-	 * @param distValue
-	 *            value the visits should be increased by
-	 * @param latency
-	 *            latency of this visit
-	 */
-	public void visitOnTask(int taskID, int distValue, int latency) {
-		distRatingsPerTask[taskID] += distValue;
-		latenciesPerTask[taskID].add(latency);
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getDistRating(index);
 	}
 
 	/**
@@ -540,7 +371,8 @@ public class RCSNode implements Serializable {
 	 * @return DistRating
 	 */
 	public int getDistRatingForTask(int taskID) {
-		return distRatingsPerTask[taskID];
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getDistRatingForTask(index, taskID);
 	}
 
 	/**
@@ -551,13 +383,7 @@ public class RCSNode implements Serializable {
 	 * @return latency weight
 	 */
 	public double getLatencyWeightForTask(int taskID) {
-		ArrayList<Integer> latencies = latenciesPerTask[taskID];
-		if (latencies.size() == 0)
-			return 0;
-		int middle = latencies.size() / 2;
-		if (latencies.size() % 2 == 1)
-			return latencies.get(middle);
-		else
-			return (latencies.get(middle - 1) + latencies.get(middle)) / 2;
+		AnalysisResult analysis = analysis();
+		return analysis == null ? 0 : analysis.getLatencyWeightForTask(index, taskID);
 	}
 }
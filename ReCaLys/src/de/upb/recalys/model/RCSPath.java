@@ -1,11 +1,15 @@
 package de.upb.recalys.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
 
 /**
- * This class defines a path a user has gone during an experiment
+ * This class defines a path a user has gone during an experiment. The steps and
+ * properties of the path are kept in the {@link PathStore} of the experiment,
+ * an RCSPath only knows its number in the store and its task.
  * 
  * @author danielbrumberg
  * @version 1.0
@@ -16,48 +20,40 @@ public class RCSPath implements Serializable {
 	 * 
 	 */
 	private static final long serialVersionUID = -850282812961419262L;
-	boolean finalized;
-	boolean successfull;
-	boolean invalid;
-	/**
-	 * true if the corresponding task was skipped by the tester. false otherwise.
-	 */
-	boolean skipped;
-	int minimumDistance;
-	int beginOfSystematicSearching;
-	RCSGraph graph;
-	RCSNode source;
-	RCSNode target;
+	private final PathStore store;
+	private final int number;
 	RCSTask task;
-	String userID;
 
-	String duration;
+	/**
+	 * Constructor: Creates a new cursor on a path in a store. Paths are created
+	 * by {@link PathStore#createPath(RCSNode, String, String)}.
+	 * 
+	 * @param store
+	 *            the store that holds the path
+	 * @param number
+	 *            the number of the path in the store
+	 */
+	RCSPath(PathStore store, int number) {
+		this.store = store;
+		this.number = number;
+	}
 
-	ArrayList<RCSNode> path;
-	ArrayList<Integer> latencies;
+	/**
+	 * Returns the number of this path in its store.
+	 *
+	 * @return number
+	 */
+	public int getNumber() {
+		return number;
+	}
 
 	/**
-	 * Constructor: Creates a new path
-	 * 
-	 * @param graph
-	 *            graph the path belongs to
-	 * @param source
-	 *            source node of this path
-	 * @param target
-	 *            target node of this path
+	 * Returns the store that holds this path.
+	 *
+	 * @return store
 	 */
-	public RCSPath(RCSGraph graph, RCSNode source, RCSNode target) {
-		this.graph = graph;
-		successfull = false;
-		finalized = false;
-		invalid = false;
-		skipped = false;
-		this.source = source;
-		this.target = target;
-		path = new ArrayList<RCSNode>();
-		// path.add(this.source);
-		latencies = new ArrayList<Integer>();
-		beginOfSystematicSearching = -1;
+	PathStore getStore() {
+		return store;
 	}
 
 	/**
@@ -71,11 +67,7 @@ public class RCSPath implements Serializable {
 	 * @return true, if adding was successfull, else false
 	 */
 	public boolean addNode(RCSNode node, int time) {
-		if (!finalized) {
-			latencies.add(new Integer(time));
-			return path.add(node);
-		} else
-			return false;
+		return store.addStep(number, node, time);
 	}
 
 	/**
@@ -86,65 +78,118 @@ public class RCSPath implements Serializable {
 	 * @return node
 	 */
 	public RCSNode getNode(int index) {
-		return path.get(index);
+		return store.node(step(index));
+	}
+
+	/**
+	 * Returns the latency at the position index in the path.
+	 *
+	 * @param index
+	 *            the index
+	 * @return latency
+	 */
+	public int getLatency(int index) {
+		return store.stepLatencies()[step(index)];
+	}
+
+	private int step(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		return store.start(number) + index;
 	}
 
 	/**
 	 * Finalize the path so that no more nodes can be added
 	 */
 	public void setFinalized() {
-		// Sets last latency to zero because there cannot be a latency
-		latencies.set(latencies.size() - 1, 0);
-		finalized = true;
+		store.finalizePath(number);
 	}
 
 	/**
-	 * Returns if this is a successfull path. (A successfull path reaches the target
-	 * node.)
+	 * Returns if this is a successfull path in the current analysis of the
+	 * graph. (A successfull path reaches the target node.)
 	 * 
 	 * @return isSuccessfull
 	 */
 	public boolean isSuccessfull() {
-		if (!finalized || invalid)
+		return isSuccessfull(store.getGraph().getAnalysis());
+	}
+
+	/**
+	 * Returns if this is a successfull path in an analysis.
+	 * 
+	 * @param analysis
+	 *            the analysis or null
+	 * @return isSuccessfull
+	 */
+	boolean isSuccessfull(AnalysisResult analysis) {
+		if (!store.hasStatus(number, PathStore.FINALIZED) || (analysis != null && analysis.isInvalid(this))
+				|| size() == 0)
 			return false;
 		else
-			return (target == path.get(path.size() - 1));
+			return store.target(number) == store.stepNodes()[store.end(number) - 1];
 	}
 
 	/**
-	 * Analyses the path
+	 * Returns the target node of this path.
+	 *
+	 * @return target
 	 */
-	public void analyse() {
+	public RCSNode getTarget() {
+		int target = store.target(number);
+		return target == PathStore.NO_NODE ? null : store.getGraph().getNodeByIndex(target);
+	}
+
+	/**
+	 * Analyses the path. The visits of the nodes are recorded in the given
+	 * analysis of the task.
+	 *
+	 * @param beginOfSystematicSearching
+	 *            the position at which systematic searching begins or -1
+	 * @param analysis
+	 *            the analysis of the task of this path
+	 */
+	void analyse(int beginOfSystematicSearching, TaskAnalysis analysis) {
 		boolean stop = false;
 		int distFromHere;
 		int distFromNext;
 		RCSNode node;
+		RCSGraph graph = store.getGraph();
 		HashSet<RCSNode> nodesOnOptimalPaths = task.getNodesOnOptimalPaths();
-		for (int i = 0; i < path.size() - 1 && !stop; i++) {
+		int[] distancesToTarget = task.getDistancesToTarget();
+		int[] nodes = store.stepNodes();
+		int[] latencies = store.stepLatencies();
+		int start = store.start(number);
+		int size = size();
+		for (int i = 0; i < size - 1 && !stop; i++) {
 			if (i == beginOfSystematicSearching)
 				stop = true;
-			else {
-				node = path.get(i);
+			else if (nodes[start + i] != PathStore.NO_NODE) {
+				node = graph.getNodeByIndex(nodes[start + i]);
 				if (nodesOnOptimalPaths.contains(node)) {
-					node.visit();
-					distFromHere = graph.getDistance(node.getID(), target.getID());
-					distFromNext = graph.getDistance(path.get(i + 1).getID(), target.getID());
+					distFromHere = distancesToTarget[nodes[start + i]];
+					distFromNext = distance(distancesToTarget, nodes[start + i + 1]);
 
 					if (distFromNext == -1)
 						distFromNext = distFromHere + 1;
 					else if ((distFromHere + 1) < distFromNext)
 						distFromNext = distFromHere + 1;
 
-					node.increaseDistRating(distFromNext - distFromHere + 1);
-					node.addLatency(latencies.get(i));
-					node.visitOnTask(task.getID(), distFromNext - distFromHere + 1, latencies.get(i));
+					analysis.visit(nodes[start + i], distFromNext - distFromHere + 1, latencies[start + i]);
 				}
 			}
 		}
 	}
 
 	/**
-	 * This method is used to detect systematic searching on this path.
+	 * This method is used to detect systematic searching on this path. For every
+	 * position i from nodesToInspect on, the nodes from i - nodesToInspect + 1 up
+	 * to nodesToInspect - 1 are inspected. Systematic searching begins at the
+	 * first position with too many problems and returns in which the user did not
+	 * take more time than the minimal latency. The window only loses its first
+	 * node from one position to the next, so its sums are updated instead of
+	 * being summed up again. A detection is recorded in the given analysis of the
+	 * task.
 	 *
 	 * @param nodesToInspect
 	 *            the nodes to inspect
@@ -152,54 +197,136 @@ public class RCSPath implements Serializable {
 	 *            the max problem rate
 	 * @param maxReturnRate
 	 *            the max return rate
+	 * @param analysis
+	 *            the analysis of the task of this path
+	 * @return the position at which systematic searching begins or -1
 	 */
-	public void detectSystematicSearching(int nodesToInspect, double maxProblemRate, double maxReturnRate) {
+	int detectSystematicSearching(int nodesToInspect, double maxProblemRate, double maxReturnRate,
+			TaskAnalysis analysis) {
+		int[] distancesToTarget = task.getDistancesToTarget();
+		int[] nodes = store.stepNodes();
+		int[] latencies = store.stepLatencies();
+		int start = store.start(number);
+		int size = size();
+		if (size < 2 * distance(distancesToTarget, nodes[start]))
+			return -1;
+		if (size <= nodesToInspect)
+			return -1;
+
+		SearchWindow window = new SearchWindow(analysis, distancesToTarget, nodes, latencies, start);
+		for (int j = 1; j < nodesToInspect; j++) {
+			window.add(j);
+		}
+		int beginOfSystematicSearching = -1;
+		for (int i = nodesToInspect; i < size; i++) {
+			double averageLatency = (double) window.latencies / nodesToInspect;
+			double averageMinLatency = (double) window.minimalLatencies / nodesToInspect;
+			double problemRate = (double) window.problems / nodesToInspect;
+			double returnRate = (double) window.returns / nodesToInspect;
+			if (problemRate > maxProblemRate && returnRate > maxReturnRate && averageLatency <= averageMinLatency) {
+				beginOfSystematicSearching = i;
+				String detection = "*********************************\n";
+				detection += "Detection of Systematic Searching:\n";
+				detection += "User: " + getUser() + ", Target: " + getTarget().getLabel() + "\n";
+				detection += "at Position: " + i + "(" + store.node(start + i) + ")\n";
+				detection += "averageMinLatency: " + averageMinLatency + "\n";
+				detection += "averageLatency: " + averageLatency + "\n";
+				detection += "problemRate: " + problemRate;
+				detection += ", returnRate: " + returnRate + "" + window.returns + "\n";
+				detection += "*********************************\n";
+				analysis.detect(number, i, detection);
+				break;
+			}
+			if (i - nodesToInspect + 1 < nodesToInspect)
+				window.remove(i - nodesToInspect + 1);
+		}
+		window.clear();
+		return beginOfSystematicSearching;
+	}
 
-		if (path.size() < 2 * graph.getDistance(path.get(0).getID(), target.getID()))
-			return;
-		boolean stop = false;
-		String detection = "";
-		HashSet<RCSNode> incidences;
-		for (int i = nodesToInspect; i < path.size() && !stop; i++) {
-			double averageLatency = 0;
-			double averageMinLatency = 0;
-			int problems = 0;
-			int returns = 0;
-			double problemRate;
-			double returnRate;
-			incidences = new HashSet<RCSNode>();
-			for (int j = i - nodesToInspect + 1; j < nodesToInspect; j++) {
-				averageLatency += latencies.get(j);
-				averageMinLatency += path.get(j).getMinimalLatency();
-				if (graph.getDistance(path.get(j).getID(), target.getID()) <= graph.getDistance(path.get(j + 1).getID(),
-						target.getID()))
-					problems++;
-				if (!incidences.add(path.get(j))) {
-					returns++;
-				}
+	/**
+	 * Returns the distance of a step to the target, a step without a node cannot
+	 * reach the target.
+	 */
+	private static int distance(int[] distancesToTarget, int node) {
+		return node == PathStore.NO_NODE ? -1 : distancesToTarget[node];
+	}
 
+	/**
+	 * The window of the detection of systematic searching: the sums of the
+	 * latencies and minimal latencies of its nodes, the number of steps that do
+	 * not lead closer to the target and the number of nodes that occur in it
+	 * more than once. A step without a node has no minimal latency, cannot reach
+	 * the target and is never a return. The occurrences of the nodes are counted
+	 * in an array of the analysis of the task, which is empty again after
+	 * {@link #clear()}.
+	 */
+	private static class SearchWindow {
+
+		private final TaskAnalysis analysis;
+		private final int[] distancesToTarget;
+		private final int[] nodes;
+		private final int[] stepLatencies;
+		private final int start;
+		private final int[] occurrences;
+		private int first;
+		private int end;
+
+		long latencies;
+		long minimalLatencies;
+		int problems;
+		int returns;
+
+		SearchWindow(TaskAnalysis analysis, int[] distancesToTarget, int[] nodes, int[] stepLatencies, int start) {
+			this.analysis = analysis;
+			this.distancesToTarget = distancesToTarget;
+			this.nodes = nodes;
+			this.stepLatencies = stepLatencies;
+			this.start = start;
+			occurrences = analysis.nodeOccurrences();
+			first = 1;
+			end = 1;
+		}
+
+		/**
+		 * Adds the node at a position of the path, the next position after the
+		 * window.
+		 */
+		void add(int position) {
+			int node = nodes[start + position];
+			latencies += stepLatencies[start + position];
+			if (node != PathStore.NO_NODE)
+				minimalLatencies += analysis.result.getMinimalLatency(node);
+			if (distance(distancesToTarget, node) <= distance(distancesToTarget, nodes[start + position + 1]))
+				problems++;
+			if (node != PathStore.NO_NODE && occurrences[node]++ > 0)
+				returns++;
+			end = position + 1;
+		}
+
+		/**
+		 * Removes the node at a position of the path, the first position of the
+		 * window.
+		 */
+		void remove(int position) {
+			int node = nodes[start + position];
+			latencies -= stepLatencies[start + position];
+			if (node != PathStore.NO_NODE)
+				minimalLatencies -= analysis.result.getMinimalLatency(node);
+			if (distance(distancesToTarget, node) <= distance(distancesToTarget, nodes[start + position + 1]))
+				problems--;
+			if (node != PathStore.NO_NODE && --occurrences[node] > 0)
+				returns--;
+			first = position + 1;
+		}
+
+		/**
+		 * Removes all nodes, so the occurrences can be counted for the next path.
+		 */
+		void clear() {
+			while (first < end) {
+				remove(first);
 			}
-			averageLatency = (double) averageLatency / nodesToInspect;
-			averageMinLatency = (double) averageMinLatency / nodesToInspect;
-			problemRate = (double) problems / nodesToInspect;
-			returnRate = (double) returns / nodesToInspect;
-			if (problemRate > maxProblemRate && returnRate > maxReturnRate)
-
-				if (averageLatency <= averageMinLatency) {
-					beginOfSystematicSearching = i;
-					invalid = true;
-					stop = true;
-					detection = "*********************************\n";
-					detection += "Detection of Systematic Searching:\n";
-					detection += "User: " + userID + ", Target: " + target.getLabel() + "\n";
-					detection += "at Position: " + i + "(" + path.get(i) + ")\n";
-					detection += "averageMinLatency: " + averageMinLatency + "\n";
-					detection += "averageLatency: " + averageLatency + "\n";
-					detection += "problemRate: " + problemRate;
-					detection += ", returnRate: " + returnRate + "" + returns + "\n";
-					detection += "*********************************\n";
-					graph.addDetectionOfSystematicSearching(detection);
-				}
 		}
 	}
 
@@ -229,7 +356,7 @@ public class RCSPath implements Serializable {
 	 *            the new user
 	 */
 	public void setUser(String user) {
-		userID = user;
+		store.setUser(number, user);
 	}
 
 	/**
@@ -238,7 +365,7 @@ public class RCSPath implements Serializable {
 	 * @return userID
 	 */
 	public String getUser() {
-		return userID;
+		return store.user(number);
 	}
 
 	/**
@@ -249,15 +376,26 @@ public class RCSPath implements Serializable {
 	 *            the new duration.
 	 */
 	public void setDuration(String duration) {
-		this.duration = duration;
+		store.setDuration(number, PathStore.parseDuration(duration));
 	}
 
-	public ArrayList<Integer> getLatencies() {
-		return latencies;
+	/**
+	 * Returns the latencies of this path. The list is a read-only view on the
+	 * store.
+	 *
+	 * @return latencies
+	 */
+	public List<Integer> getLatencies() {
+		return new LatencyView();
 	}
 
-	public ArrayList<RCSNode> getPath() {
-		return this.path;
+	/**
+	 * Returns the nodes of this path. The list is a read-only view on the store.
+	 *
+	 * @return nodes
+	 */
+	public List<RCSNode> getPath() {
+		return new NodeView();
 	}
 
 	/**
@@ -266,17 +404,18 @@ public class RCSPath implements Serializable {
 	 * @return the last node
 	 */
 	public RCSNode getEndNode() {
-		return path.get(path.size() - 1);
+		return getNode(size() - 1);
 	}
 
 	/**
 	 * Returns if the path is invalid because of the detection of systematic
-	 * searching
+	 * searching in the current analysis of the graph
 	 * 
 	 * @return invalid
 	 */
 	public boolean isInvalid() {
-		return invalid;
+		AnalysisResult analysis = store.getGraph().getAnalysis();
+		return analysis != null && analysis.isInvalid(this);
 	}
 
 	/**
@@ -285,7 +424,7 @@ public class RCSPath implements Serializable {
 	 * @return true, if is skipped
 	 */
 	public boolean isSkipped() {
-		return skipped;
+		return store.hasStatus(number, PathStore.SKIPPED);
 	}
 
 	/**
@@ -295,7 +434,7 @@ public class RCSPath implements Serializable {
 	 *            new value for skipped
 	 */
 	public void setSkipped(boolean skipped) {
-		this.skipped = skipped;
+		store.setStatus(number, PathStore.SKIPPED, skipped);
 	}
 
 	/**
@@ -304,18 +443,11 @@ public class RCSPath implements Serializable {
 	 * @return size of path
 	 */
 	public int size() {
-		return path.size();
+		return store.size(number);
 	}
 
 	public int getDurationInSeconds() {
-		int dur = 0;
-		String[] time = duration.split(":");
-		int mult = 3600;
-		for (String d : time) {
-			dur += Integer.parseInt(d) * mult;
-			mult /= 60;
-		}
-		return dur;
+		return store.duration(number);
 	}
 
 	@Override
@@ -328,7 +460,41 @@ public class RCSPath implements Serializable {
 		// output.delete(output.lastIndexOf("->"), output.length());
 		// return output.toString();
 
-		return userID + " - " + (isSuccessfull() ? "erfolgreich" : isSkipped() ? "übersprungen" : "nicht erfolgreich")
-				+ " - " + duration + " - " + (path.size() - 1) + (path.size() == 2 ? " Schritt - " : " Schritte");
+		return getUser() + " - "
+				+ (isSuccessfull() ? "erfolgreich" : isSkipped() ? "übersprungen" : "nicht erfolgreich") + " - "
+				+ PathStore.formatDuration(getDurationInSeconds()) + " - " + (size() - 1)
+				+ (size() == 2 ? " Schritt - " : " Schritte");
+	}
+
+	/**
+	 * A read-only view on the nodes of this path.
+	 */
+	private class NodeView extends AbstractList<RCSNode> implements RandomAccess {
+
+		@Override
+		public RCSNode get(int index) {
+			return getNode(index);
+		}
+
+		@Override
+		public int size() {
+			return RCSPath.this.size();
+		}
+	}
+
+	/**
+	 * A read-only view on the latencies of this path.
+	 */
+	private class LatencyView extends AbstractList<Integer> implements RandomAccess {
+
+		@Override
+		public Integer get(int index) {
+			return getLatency(index);
+		}
+
+		@Override
+		public int size() {
+			return RCSPath.this.size();
+		}
 	}
 }
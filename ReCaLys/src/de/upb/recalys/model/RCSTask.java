@@ -4,7 +4,8 @@ import java.io.Serializable;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
+
+import de.upb.recalys.helper.IntList;
 
 /**
  * This class defines a task in an rcs-experiment
@@ -18,13 +19,13 @@ public class RCSTask implements Serializable {
 	 * 
 	 */
 	private static final long serialVersionUID = -8428284891658897938L;
-	private double solutionRate;
 	private int id;
 	private RCSGraph graph;
 	private RCSNode source;
 	private RCSNode target;
 	private ArrayList<RCSPath> paths;
-	private HashSet<RCSNode> nodesOnOptimalPaths;
+	private volatile HashSet<RCSNode> nodesOnOptimalPaths;
+	private volatile int[] distancesToTarget;
 	private String alternativeTargetName;
 
 	/**
@@ -42,11 +43,9 @@ public class RCSTask implements Serializable {
 	 *            id of the task
 	 */
 	public RCSTask(RCSGraph graph, RCSNode source, RCSNode target, String alt, int id) {
-		solutionRate = -1;
 		this.graph = graph;
 		this.source = source;
 		this.target = target;
-		this.target.setTarget(true);
 		this.id = id;
 		alternativeTargetName = alt;
 		paths = new ArrayList<RCSPath>();
@@ -60,7 +59,7 @@ public class RCSTask implements Serializable {
 	 * @return true, if adding was successfull, else false
 	 */
 	public boolean addPath(RCSPath p) {
-		if (p.target == target) {
+		if (p.getTarget() == target) {
 			p.setTask(this);
 			return paths.add(p);
 		} else
@@ -82,51 +81,49 @@ public class RCSTask implements Serializable {
 	}
 
 	/**
-	 * Returns the solution-rate for this task
+	 * Returns the solution-rate for this task in the current analysis of the
+	 * graph
 	 * 
 	 * @return solution-rate
 	 */
 	public double getSolutionRate() {
-		if (solutionRate < 0) {
-			int successfullPaths = 0;
-			for (RCSPath path : paths) {
-				if (path.isSuccessfull()) {
-					successfullPaths++;
-				}
-			}
-			if (paths.size() > 0) {
-				solutionRate = successfullPaths / (double) paths.size();
-			} else
-				solutionRate = 0;
-		}
-		return solutionRate;
+		AnalysisResult analysis = graph.getAnalysis();
+		return analysis == null ? 0 : analysis.getSolutionRate(this);
 	}
 
 	/**
 	 * Detects all nodes on all optimal paths for this task by using an adapted
-	 * BFS-algorithm.
+	 * BFS-algorithm. The nodes are recorded in the given analysis.
+	 * 
+	 * @param analysis
+	 *            the analysis of this task
 	 */
-	public void detectNodesOnOptimalPaths() {
-		nodesOnOptimalPaths = new HashSet<RCSNode>();
+	private void detectNodesOnOptimalPaths(TaskAnalysis analysis) {
+		HashSet<RCSNode> nodesOnOptimalPaths = new HashSet<RCSNode>();
+		int[] distancesToTarget = getDistancesToTarget();
+		Adjacency levelChildren = graph.getLevelChildAdjacency();
 		int distFromNode;
 		int distFromChild;
-		RCSNode node;
-		LinkedList queue = new LinkedList();
-		queue.offer(source);
-		source.visitsOnOptimalPath();
+		int node;
+		IntList queue = new IntList();
+		queue.add(source.getIndex());
+		analysis.visitOnOptimalPath(source.getIndex());
 		nodesOnOptimalPaths.add(source);
-		while (queue.size() > 0) {
-			node = (RCSNode) queue.removeFirst();
-			distFromNode = graph.getDistance(node.getID(), target.getID());
-			for (RCSNode child : node.getLevelChildren()) {
-				distFromChild = graph.getDistance(child.getID(), target.getID());
+		for (int head = 0; head < queue.size(); head++) {
+			node = queue.get(head);
+			distFromNode = distancesToTarget[node];
+			for (int i = levelChildren.start(node); i < levelChildren.end(node); i++) {
+				int child = levelChildren.target(i);
+				distFromChild = distancesToTarget[child];
 				if (distFromChild != -1 && distFromNode == (distFromChild + 1)) {
-					queue.offer(child);
-					nodesOnOptimalPaths.add(child);
-					child.visitsOnOptimalPath();
+					queue.add(child);
+					nodesOnOptimalPaths.add(graph.getNodeByIndex(child));
+					analysis.visitOnOptimalPath(child);
 				}
 			}
 		}
+		// the set is only published when it is complete
+		this.nodesOnOptimalPaths = nodesOnOptimalPaths;
 	}
 
 	/**
@@ -138,6 +135,19 @@ public class RCSTask implements Serializable {
 		return nodesOnOptimalPaths;
 	}
 
+	/**
+	 * Returns the distances from all nodes to the target of this task, indexed by
+	 * the dense indices of the nodes. The distances are fetched from the graph
+	 * only once and must not be modified.
+	 * 
+	 * @return distances to the target
+	 */
+	public int[] getDistancesToTarget() {
+		if (distancesToTarget == null)
+			distancesToTarget = graph.getDistancesTo(target);
+		return distancesToTarget;
+	}
+
 	/**
 	 * Returns the target of the task
 	 * 
@@ -148,20 +158,76 @@ public class RCSTask implements Serializable {
 	}
 
 	/**
-	 * Starts the analysis of all paths belonging to this task.
+	 * Analyses this task for an analysis result without changing the task's
+	 * paths or the graph, so it can run concurrently with the analyses of other
+	 * tasks. The returned analysis has to be added to the result.
 	 *
-	 * @param nodesToInspect
-	 *            the nodes to inspect
-	 * @param maxProblemRate
-	 *            the max problem rate
-	 * @param maxReturnRate
-	 *            the max return rate
-	 */
-	public void analysePaths(int nodesToInspect, double maxProblemRate, double maxReturnRate) {
-		for (RCSPath path : paths) {
-			path.detectSystematicSearching(nodesToInspect, maxProblemRate, maxReturnRate);
-			path.analyse();
+	 * @param result
+	 *            the result that holds the parameters of the analysis
+	 * @param progress
+	 *            the progress of the analysis, a step is counted per path
+	 * @param complete
+	 *            true, if the task is analysed completely, i.e. the nodes on
+	 *            optimal paths are detected. Otherwise only the paths from
+	 *            firstPath on are analysed.
+	 * @param firstPath
+	 *            the position of the first path that is analysed
+	 * @return the analysis of this task
+	 */
+	TaskAnalysis analyse(AnalysisResult result, AnalysisProgress progress, boolean complete, int firstPath) {
+		TaskAnalysis analysis = new TaskAnalysis(this, result);
+		analysis.complete = complete;
+		if (complete)
+			detectNodesOnOptimalPaths(analysis);
+		for (int i = firstPath; i < paths.size(); i++) {
+			progress.checkCancelled();
+			RCSPath path = paths.get(i);
+			int beginOfSystematicSearching = path.detectSystematicSearching(result.getNodesToInspect(),
+					result.getMaxProblemRate(), result.getMaxReturnRate(), analysis);
+			path.analyse(beginOfSystematicSearching, analysis);
+			progress.step();
 		}
+		return analysis;
+	}
+
+	/**
+	 * Detects systematic searching on the paths of this task again, for an
+	 * analysis with other parameters than a previous one. The paths are only
+	 * analysed again, if systematic searching begins at another position on one
+	 * of them than in the previous analysis or there are paths that were not
+	 * analysed before. The nodes on optimal paths are kept.
+	 *
+	 * @param result
+	 *            the result that holds the parameters of the analysis
+	 * @param previous
+	 *            the previous analysis
+	 * @param progress
+	 *            the progress of the analysis, a step is counted per path
+	 * @param analysedPaths
+	 *            the number of paths that were analysed by the previous analysis
+	 * @return the analysis of this task
+	 */
+	TaskAnalysis reanalyse(AnalysisResult result, AnalysisResult previous, AnalysisProgress progress,
+			int analysedPaths) {
+		TaskAnalysis analysis = new TaskAnalysis(this, result);
+		int[] begins = new int[paths.size()];
+		boolean changed = paths.size() > analysedPaths;
+		for (int i = 0; i < paths.size(); i++) {
+			progress.checkCancelled();
+			RCSPath path = paths.get(i);
+			begins[i] = path.detectSystematicSearching(result.getNodesToInspect(), result.getMaxProblemRate(),
+					result.getMaxReturnRate(), analysis);
+			if (i < analysedPaths && begins[i] != previous.getBeginOfSystematicSearching(path))
+				changed = true;
+			progress.step();
+		}
+		if (changed) {
+			analysis.replacesVisits = true;
+			for (int i = 0; i < paths.size(); i++) {
+				paths.get(i).analyse(begins[i], analysis);
+			}
+		}
+		return analysis;
 	}
 
 	/**
@@ -170,23 +236,21 @@ public class RCSTask implements Serializable {
 	 * @return numberOfInvalidPaths
 	 */
 	public int getNumberOfInvalidPaths() {
-		int i = 0;
-		for (RCSPath path : paths) {
-			if (path.isInvalid())
-				i++;
-		}
-		return i;
+		AnalysisResult analysis = graph.getAnalysis();
+		return analysis == null ? 0 : analysis.getNumberOfInvalidPaths(this);
 	}
 
 	/**
-	 * Resets the analysis
+	 * Resets the distances to the target, e.g. after the graph was changed
 	 */
 	public void resetAnalysis() {
-		solutionRate = -1;
+		distancesToTarget = null;
 	}
 
 	/**
-	 * Returns the id of this task
+	 * Returns the id of this task. The id is the position of the task in the
+	 * experiment in which it was created and never changes, so it can be used as
+	 * an int key for the task.
 	 * 
 	 * @return id
 	 */
@@ -237,7 +301,7 @@ public class RCSTask implements Serializable {
 		NumberFormat n = NumberFormat.getInstance();
 		n.setMaximumFractionDigits(2);
 
-		return alternativeTargetName + " (Lösungsquote: " + n.format(solutionRate * 100) + "% - \u00D8-Zeit: "
+		return alternativeTargetName + " (Lösungsquote: " + n.format(getSolutionRate() * 100) + "% - \u00D8-Zeit: "
 				+ getAverageTimeTaken() + "s - \u00D8-Länge: " + getAveragePathLength() + " Schritte)";
 	}
 
@@ -0,0 +1,204 @@
+package de.upb.recalys.model;
+
+import java.util.Arrays;
+
+/**
+ * This class defines a {@link DistanceStore} that computes distances on
+ * demand. All the analyses only ask for distances towards the target of a
+ * task, so a single reverse BFS over the parent links of a target yields every
+ * distance that is needed for it. The resulting rows are kept in a cache that
+ * is bounded by a number of bytes and evicts the least recently used row.
+ */
+public class TargetDistanceOracle implements DistanceStore {
+
+	/** The default size of the cache in bytes. */
+	public static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+	private static final int NONE = -1;
+
+	private final int size;
+	private int[] parentOffsets;
+	private int[] parentTargets;
+	private final int maxRows;
+
+	/** The cached rows by the index of their target or null. */
+	private final int[][] rows;
+	/** A doubly linked list of the cached targets in order of their last use. */
+	private final int[] previous;
+	private final int[] next;
+	private int mostRecent = NONE;
+	private int leastRecent = NONE;
+	private int cachedRows = 0;
+
+	private final int[] queue;
+
+	/**
+	 * Constructor: Creates a new oracle with the default cache size.
+	 *
+	 * @param parentOffsets
+	 *            the offsets into {@code parentTargets}: the parents of node
+	 *            {@code i} are {@code parentTargets[parentOffsets[i]]} to
+	 *            {@code parentTargets[parentOffsets[i + 1] - 1]}
+	 * @param parentTargets
+	 *            the indices of the parents of all nodes
+	 */
+	public TargetDistanceOracle(int[] parentOffsets, int[] parentTargets) {
+		this(parentOffsets, parentTargets, DEFAULT_CACHE_BYTES);
+	}
+
+	/**
+	 * Constructor: Creates a new oracle.
+	 *
+	 * @param parentOffsets
+	 *            the offsets into {@code parentTargets}
+	 * @param parentTargets
+	 *            the indices of the parents of all nodes
+	 * @param cacheBytes
+	 *            the maximal number of bytes the cached rows may occupy. At
+	 *            least one row is always cached.
+	 */
+	public TargetDistanceOracle(int[] parentOffsets, int[] parentTargets, long cacheBytes) {
+		this.size = parentOffsets.length - 1;
+		this.parentOffsets = parentOffsets;
+		this.parentTargets = parentTargets;
+		this.maxRows = (int) Math.max(1, Math.min(size, cacheBytes / (4L * Math.max(1, size))));
+		rows = new int[size][];
+		previous = new int[size];
+		next = new int[size];
+		queue = new int[size];
+	}
+
+	@Override
+	public int getDistance(int sourceIndex, int targetIndex) {
+		return getDistancesTo(targetIndex)[sourceIndex];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the distances from all nodes to the given target, indexed by the
+	 * dense index of the source node. The returned array is shared with the
+	 * cache and must not be modified.
+	 *
+	 * @param targetIndex
+	 *            the index of the target node
+	 * @return distances to the target, -1 for nodes that cannot reach it
+	 */
+	public synchronized int[] getDistancesTo(int targetIndex) {
+		int[] row = rows[targetIndex];
+		if (row != null) {
+			unlink(targetIndex);
+		} else {
+			if (cachedRows == maxRows) {
+				int eldest = leastRecent;
+				unlink(eldest);
+				rows[eldest] = null;
+				cachedRows--;
+			}
+			row = reverseBreadthFirstSearch(targetIndex);
+			rows[targetIndex] = row;
+			cachedRows++;
+		}
+		linkFirst(targetIndex);
+		return row;
+	}
+
+	/**
+	 * Updates the oracle after a link between two nodes was added or removed.
+	 * Only the cached rows whose distances may have changed are dropped, the
+	 * others stay valid.
+	 *
+	 * @param parentOffsets
+	 *            the new offsets into {@code parentTargets}
+	 * @param parentTargets
+	 *            the new indices of the parents of all nodes
+	 * @param parent
+	 *            the index of the parent of the link
+	 * @param child
+	 *            the index of the child of the link
+	 * @param added
+	 *            true, if the link was added; false, if it was removed
+	 */
+	public synchronized void linkChanged(int[] parentOffsets, int[] parentTargets, int parent, int child,
+			boolean added) {
+		this.parentOffsets = parentOffsets;
+		this.parentTargets = parentTargets;
+		int target = mostRecent;
+		while (target != NONE) {
+			int[] row = rows[target];
+			int following = next[target];
+			boolean affected;
+			if (added)
+				affected = row[child] != -1 && (row[parent] == -1 || row[parent] > row[child] + 1);
+			else
+				affected = row[child] != -1 && row[parent] == row[child] + 1;
+			if (affected) {
+				unlink(target);
+				rows[target] = null;
+				cachedRows--;
+			}
+			target = following;
+		}
+	}
+
+	/**
+	 * Returns the number of rows that are currently cached.
+	 *
+	 * @return number of cached rows
+	 */
+	public synchronized int getCachedRows() {
+		return cachedRows;
+	}
+
+	/**
+	 * Computes the distances to the target by a BFS that follows the parent
+	 * links.
+	 *
+	 * @param target
+	 *            the index of the target node
+	 * @return the distances to the target
+	 */
+	private int[] reverseBreadthFirstSearch(int target) {
+		int[] distance = new int[size];
+		Arrays.fill(distance, -1);
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = target;
+		distance[target] = 0;
+		while (head < tail) {
+			int node = queue[head++];
+			for (int i = parentOffsets[node]; i < parentOffsets[node + 1]; i++) {
+				int parent = parentTargets[i];
+				if (distance[parent] == -1) {
+					distance[parent] = distance[node] + 1;
+					queue[tail++] = parent;
+				}
+			}
+		}
+		return distance;
+	}
+
+	private void unlink(int target) {
+		if (previous[target] != NONE)
+			next[previous[target]] = next[target];
+		else
+			mostRecent = next[target];
+		if (next[target] != NONE)
+			previous[next[target]] = previous[target];
+		else
+			leastRecent = previous[target];
+	}
+
+	private void linkFirst(int target) {
+		previous[target] = NONE;
+		next[target] = mostRecent;
+		if (mostRecent != NONE)
+			previous[mostRecent] = target;
+		mostRecent = target;
+		if (leastRecent == NONE)
+			leastRecent = target;
+	}
+}
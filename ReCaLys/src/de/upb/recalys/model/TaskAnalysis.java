@@ -0,0 +1,184 @@
+package de.upb.recalys.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import de.upb.recalys.helper.IntList;
+
+/**
+ * This class collects the analysis of the paths of one task for an
+ * {@link AnalysisResult}, so the tasks of an experiment can be analysed in
+ * parallel. The visits of the nodes are recorded in primitive lists in the
+ * order they occur and are added to the result afterwards. If the analyses of
+ * the tasks are added in the order of the tasks, the result is the same as by
+ * a sequential analysis; the order of the latencies matters for the latency
+ * weights.
+ */
+class TaskAnalysis {
+
+	final RCSTask task;
+	final AnalysisResult result;
+
+	/* true, if the nodes on optimal paths were detected */
+	boolean complete;
+
+	/* true, if the visits replace the visits of the task in the result */
+	boolean replacesVisits;
+
+	/* the indices of the nodes on optimal paths */
+	final IntList nodesOnOptimalPaths = new IntList();
+
+	/* the visits: index of the node, value of the DistRating, latency */
+	final IntList visits = new IntList();
+
+	/* the invalid paths: number of the path, begin of systematic searching */
+	final IntList beginsOfSystematicSearching = new IntList();
+
+	final ArrayList<String> detections = new ArrayList<String>();
+
+	/* the occurrences of the nodes in the window of the detection of systematic searching */
+	private int[] nodeOccurrences;
+
+	/**
+	 * Constructor: Creates a new empty analysis of a task
+	 *
+	 * @param task
+	 *            the task
+	 * @param result
+	 *            the result the analysis is added to
+	 */
+	TaskAnalysis(RCSTask task, AnalysisResult result) {
+		this.task = task;
+		this.result = result;
+	}
+
+	/**
+	 * Records that a node lies on an optimal path of the task.
+	 *
+	 * @param node
+	 *            the index of the node
+	 */
+	void visitOnOptimalPath(int node) {
+		nodesOnOptimalPaths.add(node);
+	}
+
+	/**
+	 * Records a visit of a node on a path of the task.
+	 *
+	 * @param node
+	 *            the index of the node
+	 * @param distValue
+	 *            the value the DistRating of the node is increased by
+	 * @param latency
+	 *            the latency of the visit
+	 */
+	void visit(int node, int distValue, int latency) {
+		visits.add(node);
+		visits.add(distValue);
+		visits.add(latency);
+	}
+
+	/**
+	 * Returns an array to count the occurrences of the nodes in, that is shared
+	 * by the paths of the task. It is empty, whenever it is not in use.
+	 *
+	 * @return the occurrences indexed by the dense indices of the nodes
+	 */
+	int[] nodeOccurrences() {
+		if (nodeOccurrences == null)
+			nodeOccurrences = new int[result.getGraph().getNodeCount()];
+		return nodeOccurrences;
+	}
+
+	/**
+	 * Records a detection of systematic searching.
+	 *
+	 * @param path
+	 *            the number of the path
+	 * @param position
+	 *            the position on the path at which systematic searching begins
+	 * @param detection
+	 *            information about the detection
+	 */
+	void detect(int path, int position, String detection) {
+		beginsOfSystematicSearching.add(path);
+		beginsOfSystematicSearching.add(position);
+		detections.add(detection);
+	}
+
+	/**
+	 * This class analyses the tasks of an experiment on a
+	 * {@link java.util.concurrent.ForkJoinPool}. The range of tasks is split
+	 * recursively, every task is analysed on its own. Tasks that were not
+	 * analysed before are analysed completely.
+	 */
+	static class Computation extends RecursiveAction {
+
+		private static final long serialVersionUID = 7207745263419412418L;
+
+		private final AnalysisResult result;
+		private final AnalysisResult previous;
+		private final List<RCSTask> tasks;
+		private final int[] analysedPathCounts;
+		private final TaskAnalysis[] analyses;
+		private final AnalysisProgress progress;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Constructor: Creates a new computation for all tasks.
+		 *
+		 * @param result
+		 *            the result the tasks are analysed for
+		 * @param previous
+		 *            null, if only the paths that were not analysed before are
+		 *            analysed. Otherwise the analysis with other parameters that
+		 *            systematic searching is detected again for.
+		 * @param tasks
+		 *            the tasks of the experiment
+		 * @param analysedPathCounts
+		 *            the number of paths of the tasks that were analysed before
+		 * @param analyses
+		 *            the array the analyses of the tasks are written to
+		 * @param progress
+		 *            the progress of the analysis, a step is counted per path
+		 */
+		Computation(AnalysisResult result, AnalysisResult previous, List<RCSTask> tasks, int[] analysedPathCounts,
+				TaskAnalysis[] analyses, AnalysisProgress progress) {
+			this(result, previous, tasks, analysedPathCounts, analyses, progress, 0, tasks.size());
+		}
+
+		private Computation(AnalysisResult result, AnalysisResult previous, List<RCSTask> tasks,
+				int[] analysedPathCounts, TaskAnalysis[] analyses, AnalysisProgress progress, int from, int to) {
+			this.result = result;
+			this.previous = previous;
+			this.tasks = tasks;
+			this.analysedPathCounts = analysedPathCounts;
+			this.analyses = analyses;
+			this.progress = progress;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				RCSTask task = tasks.get(from);
+				if (from >= analysedPathCounts.length)
+					analyses[from] = task.analyse(result, progress, true, 0);
+				else if (previous != null)
+					analyses[from] = task.reanalyse(result, previous, progress, analysedPathCounts[from]);
+				else
+					analyses[from] = task.analyse(result, progress, false, analysedPathCounts[from]);
+			} else if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+						new Computation(result, previous, tasks, analysedPathCounts, analyses, progress, from,
+								middle),
+						new Computation(result, previous, tasks, analysedPathCounts, analyses, progress, middle,
+								to));
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package de.upb.recalys.view;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.WindowConstants;
+import javax.swing.border.EmptyBorder;
+
+import de.upb.recalys.model.AnalysisProgress;
+
+/**
+ * This class defines a JDialog that shows the progress of an analysis that
+ * runs in the background and allows to cancel it.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+@SuppressWarnings("serial")
+public class AnalysisProgressDialog extends javax.swing.JDialog {
+
+	private final AnalysisProgress progress;
+
+	/**
+	 * Constructor: Creates a new AnalysisProgressDialog.
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param progress
+	 *            the progress of the analysis
+	 */
+	public AnalysisProgressDialog(java.awt.Frame parent, AnalysisProgress progress) {
+		super(parent, false);
+		this.progress = progress;
+
+		initComponents();
+		setLocationRelativeTo(parent);
+	}
+
+	/**
+	 * This method is called from within the constructor to initialize the form.
+	 */
+	private void initComponents() {
+		setMinimumSize(new Dimension(325, 140));
+		setTitle("Auswertung");
+		setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				cancel();
+			}
+		});
+
+		pnlProgress = new JPanel(new BorderLayout(0, 10));
+		pnlProgress.setBorder(new EmptyBorder(15, 15, 15, 15));
+		getContentPane().add(pnlProgress, BorderLayout.CENTER);
+
+		lblProgress = new JLabel("Auswertung wird durchgeführt...");
+		pnlProgress.add(lblProgress, BorderLayout.NORTH);
+
+		barProgress = new JProgressBar(0, 1000);
+		pnlProgress.add(barProgress, BorderLayout.CENTER);
+
+		JPanel pnlButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+		btnCancel = new JButton("Abbrechen");
+		btnCancel.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				cancel();
+			}
+		});
+		pnlButtons.add(btnCancel);
+		pnlProgress.add(pnlButtons, BorderLayout.SOUTH);
+		pack();
+	}
+
+	/**
+	 * Cancels the analysis.
+	 */
+	private void cancel() {
+		progress.cancel();
+		btnCancel.setEnabled(false);
+		lblProgress.setText("Auswertung wird abgebrochen...");
+	}
+
+	/**
+	 * Shows the current progress. Must be called on the event dispatch thread.
+	 */
+	public void updateProgress() {
+		if (progress.isCancelled())
+			return;
+		switch (progress.getPhase()) {
+		case AnalysisProgress.PATHS:
+			lblProgress.setText(progress.getDone() + " von " + progress.getTotal() + " Pfaden ausgewertet");
+			break;
+		case AnalysisProgress.BAD_LIST:
+			lblProgress.setText("Problem-Seiten werden bestimmt...");
+			break;
+		default:
+			lblProgress.setText("Abdeckung wird berechnet...");
+			break;
+		}
+		if (progress.getTotal() > 0)
+			barProgress.setValue((int) ((long) progress.getDone() * 1000 / progress.getTotal()));
+	}
+
+	private JPanel pnlProgress;
+	private JLabel lblProgress;
+	private JProgressBar barProgress;
+	private JButton btnCancel;
+}
@@ -13,6 +13,7 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
@@ -44,6 +45,7 @@ import javax.swing.JTextArea;
 import javax.swing.KeyStroke;
 import javax.swing.LayoutStyle.ComponentPlacement;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.event.ChangeEvent;
@@ -53,8 +55,11 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import org.graphstream.ui.swingViewer.ViewPanel;
 import org.graphstream.ui.view.Viewer;
 
+import de.upb.recalys.control.AnalysisListener;
 import de.upb.recalys.control.ReCaLys;
 import de.upb.recalys.helper.FileChecker;
+import de.upb.recalys.model.AnalysisProgress;
+import de.upb.recalys.model.RCSGraph;
 import de.upb.recalys.model.RCSNode;
 import de.upb.recalys.model.RCSPath;
 import de.upb.recalys.model.RCSTask;
@@ -75,7 +80,13 @@ import de.upb.recalys.visualization.view.RCSGraphShortcutManager;
  * @version 1.1
  */
 @SuppressWarnings("serial")
-public class GUI extends JFrame {
+public class GUI extends JFrame implements AnalysisListener {
+
+	private static final String LIVE_MODE_START = "4. Live-Modus starten";
+	private static final String LIVE_MODE_STOP = "4. Live-Modus beenden";
+
+	/* the exports of ReCaPo may be compressed */
+	private static final String[] XML_EXTENSIONS = { "xml", "gz", "zip" };
 
 	private ReCaLys recalys;
 	private IAGraph iaGraph;
@@ -85,6 +96,8 @@ public class GUI extends JFrame {
 	private PieGraphLegend pieGraphLegend;
 
 	private SystematicSearchDetectionDialog ssdd;
+	private ImportProgressDialog importProgressDialog;
+	private AnalysisProgressDialog analysisProgressDialog;
 	private TaskTableModel ttm;
 	private ProblemTableModel ptm;
 	private CoverageTableModel ctm;
@@ -196,9 +209,6 @@ public class GUI extends JFrame {
 			comboBoxTaskForPieGraph.addItem(orderedTasks[i]);
 			comboBoxTaskForPieGraph.setSelectedIndex(currentSelectedIndexPieGraphTask);
 		}
-		while (recalys.analysisComplete() && recalys.getBadList() == null) {
-			System.out.println("no badlist");
-		}
 		if (recalys.getBadList() == null) {
 			updateInProgress = false;
 			return;
@@ -336,6 +346,103 @@ public class GUI extends JFrame {
 		txtrSSDLog.setText(log);
 	}
 
+	/**
+	 * Shows the graph of a new IA and enables the menus for it.
+	 *
+	 * @param graph
+	 *            the graph that represents the website structure
+	 */
+	@Override
+	public void graphLoaded(RCSGraph graph) {
+		iaGraph.init(graph);
+		pieGraph.init(graph);
+
+		setAnalyseMenuEnabled(false);
+		setGraphMenuEnabled(true);
+	}
+
+	/**
+	 * Enables the menus for an imported experiment.
+	 */
+	@Override
+	public void experimentReplaced() {
+		setAnalyseMenuEnabled(true);
+		setPieGraphMenuItemsEnabled(true);
+	}
+
+	/**
+	 * Shows the changed analysis.
+	 */
+	@Override
+	public void analysisUpdated() {
+		updateGUI();
+	}
+
+	/**
+	 * Shows the progress of an analysis that runs in the background. The dialog
+	 * is only shown if the analysis takes longer than half a second, so short
+	 * analyses, e.g. in live mode, do not let it flicker.
+	 *
+	 * @param progress
+	 *            the progress of the analysis
+	 */
+	@Override
+	public void analysisStarted(AnalysisProgress progress) {
+		miAnalyse.setEnabled(false);
+		final AnalysisProgressDialog dialog = new AnalysisProgressDialog(this, progress);
+		analysisProgressDialog = dialog;
+		Timer timer = new Timer(500, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if (dialog == analysisProgressDialog)
+					dialog.setVisible(true);
+			}
+		});
+		timer.setRepeats(false);
+		timer.start();
+	}
+
+	/**
+	 * Shows the changed progress of the analysis.
+	 *
+	 * @param progress
+	 *            the progress of the analysis
+	 */
+	@Override
+	public void analysisProgressChanged(AnalysisProgress progress) {
+		if (analysisProgressDialog != null)
+			analysisProgressDialog.updateProgress();
+	}
+
+	/**
+	 * Closes the progress of the analysis.
+	 *
+	 * @param completed
+	 *            true, if the analysis was completed, false if it was cancelled
+	 *            or failed
+	 */
+	@Override
+	public void analysisEnded(boolean completed) {
+		if (analysisProgressDialog != null) {
+			analysisProgressDialog.dispose();
+			analysisProgressDialog = null;
+		}
+		miAnalyse.setEnabled(true);
+	}
+
+	/**
+	 * Shows the changed log of the detection of systematic searching and writes
+	 * it to ssd-log.txt in the working directory.
+	 *
+	 * @param log
+	 *            the log
+	 */
+	@Override
+	public void systematicSearchLogChanged(String log) {
+		setSSDLog(log);
+		if (!log.equals(""))
+			recalys.exportSystematicSearchLog("ssd-log.txt");
+	}
+
 	/**
 	 * Returns true, if details-for-problem is selected returns false, if
 	 * details-for-task is selected.
@@ -399,6 +506,32 @@ public class GUI extends JFrame {
 		miImportResults.setEnabled(false);
 		menuImport.add(miImportResults);
 
+		miAppendResults = new JMenuItem("3. weitere Resultate hinzufügen");
+		miAppendResults.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				miAppendResultsActionPerformed(e);
+			}
+		});
+		miAppendResults.setEnabled(false);
+		menuImport.add(miAppendResults);
+
+		miLiveMode = new JMenuItem(LIVE_MODE_START);
+		miLiveMode.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				miLiveModeActionPerformed(e);
+			}
+		});
+		miLiveMode.setEnabled(false);
+		menuImport.add(miLiveMode);
+
+		chckbxmntmWriteSnapshots = new JCheckBoxMenuItem("Strukturgraph zwischenspeichern");
+		chckbxmntmWriteSnapshots.addItemListener(new ItemListener() {
+			public void itemStateChanged(ItemEvent e) {
+				chckbxmntmWriteSnapshotsItemStateChanged(e);
+			}
+		});
+		menuImport.add(chckbxmntmWriteSnapshots);
+
 		separatorImport2 = new JSeparator();
 		menuImport.add(separatorImport2);
 
@@ -861,7 +994,7 @@ public class GUI extends JFrame {
 	 */
 	protected void miImportRecapoIAActionPerformed(ActionEvent e) {
 		JFileChooser chooser = new JFileChooser();
-		FileNameExtensionFilter filter = new FileNameExtensionFilter("XML-Dateien", "xml");
+		FileNameExtensionFilter filter = new FileNameExtensionFilter("XML-Dateien", XML_EXTENSIONS);
 		chooser.setFileFilter(filter);
 
 		int returnVal = chooser.showOpenDialog(this);
@@ -869,8 +1002,19 @@ public class GUI extends JFrame {
 			// check if the selected File is an XML-File that represents a IA
 			// export from ReCaPo
 			if (FileChecker.checkRoot(chooser.getSelectedFile(), "recapo")) {
-				recalys.buildGraphXML(chooser.getSelectedFile());
+				try {
+					recalys.buildGraphXML(chooser.getSelectedFile());
+				} catch (IOException ex) {
+					JOptionPane.showMessageDialog(this,
+							"Die Informationsarchitektur " + chooser.getSelectedFile().getName()
+									+ " kann nicht gelesen werden.",
+							"XML-Datei inkorrekt", JOptionPane.WARNING_MESSAGE);
+					return;
+				}
 				miImportResults.setEnabled(true);
+				miAppendResults.setEnabled(false);
+				miLiveMode.setEnabled(true);
+				miLiveMode.setText(LIVE_MODE_START);
 
 				chckbxmntmShowCoverage.setVisible(false);
 				chckbxmntmShowCoverage.setSelected(false);
@@ -891,27 +1035,155 @@ public class GUI extends JFrame {
 	 *            event
 	 */
 	protected void miImportResultsActionPerformed(ActionEvent e) {
+		File[] files = chooseResultsFiles();
+		if (files != null) {
+			startResultsImport(files);
+			recalys.importResults(files, importProgressDialog.getProgress());
+			importProgressDialog.setVisible(true);
+		}
+	}
+
+	/**
+	 * This Method will be triggered, if the user clicks on the
+	 * miAppendResults-MenuItem to add further results to the experiment.
+	 *
+	 * @param e
+	 *            event
+	 */
+	protected void miAppendResultsActionPerformed(ActionEvent e) {
+		File[] files = chooseResultsFiles();
+		if (files != null) {
+			startResultsImport(files);
+			recalys.appendResults(files, importProgressDialog.getProgress());
+			importProgressDialog.setVisible(true);
+		}
+	}
+
+	/**
+	 * This Method will be triggered, if the user clicks on the miLiveMode-MenuItem
+	 * to watch the results of a running experiment or to stop watching them.
+	 *
+	 * @param e
+	 *            event
+	 */
+	protected void miLiveModeActionPerformed(ActionEvent e) {
+		if (recalys.isLiveModeActive()) {
+			recalys.stopLiveMode();
+			setLiveMode(false);
+			return;
+		}
+
 		JFileChooser chooser = new JFileChooser();
 		FileNameExtensionFilter filter = new FileNameExtensionFilter("XML-Dateien", "xml");
 		chooser.setFileFilter(filter);
+		// a directory is watched for new results files
+		chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
 
 		int returnVal = chooser.showOpenDialog(this);
-		if (returnVal == JFileChooser.APPROVE_OPTION) {
-			// check if the selected File is an XML-File that represents a
-			// results export from ReCaPo
-			if (FileChecker.checkRoot(chooser.getSelectedFile(), "cardsort")) {
-				recalys.importResults(chooser.getSelectedFile());
-				recalys.analyse();
+		if (returnVal != JFileChooser.APPROVE_OPTION)
+			return;
+		File file = chooser.getSelectedFile();
+		if (file.isFile() && !FileChecker.checkRoot(file, "cardsort")) {
+			JOptionPane.showMessageDialog(this,
+					"Die ausgewählte XML-Datei " + file.getName()
+							+ " repräsentiert keine Resultate, die in ReCaPo erstellt wurden.",
+					"XML-Datei inkorrekt", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		try {
+			recalys.startLiveMode(file);
+			setLiveMode(true);
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(this, file.getName() + " kann nicht beobachtet werden.",
+					"Live-Modus", JOptionPane.WARNING_MESSAGE);
+		}
+	}
+
+	/**
+	 * Adjusts the import menu to the live mode. While the results are watched,
+	 * they cannot be imported by hand.
+	 *
+	 * @param active
+	 *            true, if the live mode was started
+	 */
+	private void setLiveMode(boolean active) {
+		miLiveMode.setText(active ? LIVE_MODE_STOP : LIVE_MODE_START);
+		miImportRecapoIA.setEnabled(!active);
+		miImportResults.setEnabled(!active);
+		miAppendResults.setEnabled(!active && recalys.getPathStore() != null);
+	}
 
-				PieGraph pieGraphTest = new PieGraph();
-				pieGraphTest.init(recalys.getGraph());
+	/**
+	 * Lets the user choose the files with the results of an experiment.
+	 *
+	 * @return the files or null, if no valid files were chosen
+	 */
+	private File[] chooseResultsFiles() {
+		JFileChooser chooser = new JFileChooser();
+		FileNameExtensionFilter filter = new FileNameExtensionFilter("XML-Dateien", XML_EXTENSIONS);
+		chooser.setFileFilter(filter);
+		// the results may be split into several files
+		chooser.setMultiSelectionEnabled(true);
 
-				chckbxmntmShowCoverage.setVisible(true);
-				miSaveSSDlog.setEnabled(true);
-			} else
+		int returnVal = chooser.showOpenDialog(this);
+		if (returnVal != JFileChooser.APPROVE_OPTION)
+			return null;
+		File[] files = chooser.getSelectedFiles();
+		for (File file : files) {
+			// check if the selected File is an XML-File that represents a
+			// results export from ReCaPo
+			if (!FileChecker.checkRoot(file, "cardsort")) {
 				JOptionPane.showMessageDialog(this,
-						"Die ausgewählte XML-Datei repräsentiert keine Resultate, die in ReCaPo erstellt wurden.",
+						"Die ausgewählte XML-Datei " + file.getName()
+								+ " repräsentiert keine Resultate, die in ReCaPo erstellt wurden.",
 						"XML-Datei inkorrekt", JOptionPane.WARNING_MESSAGE);
+				return null;
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Disables the import menu and creates the dialog that shows the progress of
+	 * the import of the given files.
+	 *
+	 * @param files
+	 *            the files that will be imported
+	 */
+	private void startResultsImport(File[] files) {
+		long totalBytes = 0;
+		for (File file : files) {
+			totalBytes += file.length();
+		}
+		miImportRecapoIA.setEnabled(false);
+		miImportResults.setEnabled(false);
+		miAppendResults.setEnabled(false);
+		miLiveMode.setEnabled(false);
+		importProgressDialog = new ImportProgressDialog(this, totalBytes);
+	}
+
+	/**
+	 * This method is called when an import of results has ended. The experiment
+	 * has already been replaced and analysed if the import was successfull.
+	 *
+	 * @param imported
+	 *            true, if the results were imported, false if the import was
+	 *            cancelled or failed
+	 */
+	@Override
+	public void resultsImported(boolean imported) {
+		if (importProgressDialog != null) {
+			importProgressDialog.dispose();
+			importProgressDialog = null;
+		}
+		miLiveMode.setEnabled(true);
+		setLiveMode(recalys.isLiveModeActive());
+		if (imported) {
+			PieGraph pieGraphTest = new PieGraph();
+			pieGraphTest.init(recalys.getGraph());
+
+			chckbxmntmShowCoverage.setVisible(true);
+			miSaveSSDlog.setEnabled(true);
 		}
 	}
 
@@ -931,13 +1203,13 @@ public class GUI extends JFrame {
 	/**
 	 * This method will be triggered, if the user clicks on to the
 	 * miAnalyseAction-MenuItem to start the analysis of the menu item. The analysis
-	 * will be executed.
+	 * will be executed in the background, the current analysis is shown until it
+	 * is replaced.
 	 * 
 	 * @param e
 	 *            event
 	 */
 	protected void miAnalyseActionPerformed(ActionEvent e) {
-		recalys.resetAnalysis();
 		recalys.analyse();
 	}
 
@@ -1128,6 +1400,18 @@ public class GUI extends JFrame {
 		}
 	}
 
+	/**
+	 * This method will be triggered, if the state of the
+	 * chckbxmntmWriteSnapshots changed. If it is selected, a snapshot of the
+	 * graph is written next to the next imported IA-file.
+	 *
+	 * @param e
+	 *            the e
+	 */
+	protected void chckbxmntmWriteSnapshotsItemStateChanged(ItemEvent e) {
+		recalys.setWriteSnapshots(chckbxmntmWriteSnapshots.isSelected());
+	}
+
 	/**
 	 * This method will be triggered, if the state of the chbxShowCoverage changed.
 	 * This method will activate/deactivate the the unique visualization of nodes
@@ -1233,6 +1517,9 @@ public class GUI extends JFrame {
 	private JLabel lblRecapo;
 	private JMenuItem miImportRecapoIA;
 	private JMenuItem miImportResults;
+	private JMenuItem miAppendResults;
+	private JMenuItem miLiveMode;
+	private JCheckBoxMenuItem chckbxmntmWriteSnapshots;
 	private JSeparator separatorImport2;
 	private JMenu menuAnalyse;
 	private JMenuItem miSsd;
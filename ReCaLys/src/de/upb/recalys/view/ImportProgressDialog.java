@@ -0,0 +1,129 @@
+package de.upb.recalys.view;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+import javax.swing.border.EmptyBorder;
+
+import de.upb.recalys.control.ImportProgress;
+
+/**
+ * This class defines a JDialog that shows the progress of an import of results
+ * and allows to cancel it.
+ *
+ * @author Roman Kober
+ * @version 1.0
+ */
+@SuppressWarnings("serial")
+public class ImportProgressDialog extends javax.swing.JDialog implements ImportProgress.Listener {
+
+	private final ImportProgress progress;
+
+	/**
+	 * Constructor: Creates a new ImportProgressDialog.
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param totalBytes
+	 *            the size of the imported file in bytes
+	 */
+	public ImportProgressDialog(java.awt.Frame parent, long totalBytes) {
+		super(parent, false);
+		progress = new ImportProgress(totalBytes, this);
+
+		initComponents();
+		setLocationRelativeTo(parent);
+	}
+
+	/**
+	 * This method is called from within the constructor to initialize the form.
+	 */
+	private void initComponents() {
+		setMinimumSize(new Dimension(325, 140));
+		setTitle("Import der Ergebnisse");
+		setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				cancel();
+			}
+		});
+
+		pnlProgress = new JPanel(new BorderLayout(0, 10));
+		pnlProgress.setBorder(new EmptyBorder(15, 15, 15, 15));
+		getContentPane().add(pnlProgress, BorderLayout.CENTER);
+
+		lblProgress = new JLabel("Ergebnisse werden importiert...");
+		pnlProgress.add(lblProgress, BorderLayout.NORTH);
+
+		barProgress = new JProgressBar(0, 1000);
+		barProgress.setIndeterminate(progress.getTotalBytes() <= 0);
+		pnlProgress.add(barProgress, BorderLayout.CENTER);
+
+		JPanel pnlButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+		btnCancel = new JButton("Abbrechen");
+		btnCancel.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				cancel();
+			}
+		});
+		pnlButtons.add(btnCancel);
+		pnlProgress.add(pnlButtons, BorderLayout.SOUTH);
+		pack();
+	}
+
+	/**
+	 * Returns the progress that is shown in this dialog.
+	 *
+	 * @return progress
+	 */
+	public ImportProgress getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Cancels the import.
+	 */
+	private void cancel() {
+		progress.cancel();
+		btnCancel.setEnabled(false);
+		lblProgress.setText("Import wird abgebrochen...");
+	}
+
+	/**
+	 * Shows the current progress. This method may be called on any thread, the
+	 * dialog itself is updated on the event dispatch thread.
+	 *
+	 * @param progress
+	 *            the progress
+	 */
+	@Override
+	public void progressChanged(final ImportProgress progress) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			public void run() {
+				if (progress.isCancelled())
+					return;
+				lblProgress.setText(progress.getUsers() + " Teilnehmer, " + progress.getSessions() + " Aufgaben");
+				if (progress.getTotalBytes() > 0)
+					barProgress.setValue((int) (progress.getBytesRead() * 1000 / progress.getTotalBytes()));
+			}
+		});
+	}
+
+	private JPanel pnlProgress;
+	private JLabel lblProgress;
+	private JProgressBar barProgress;
+	private JButton btnCancel;
+}
@@ -166,7 +166,10 @@ public class SystematicSearchDetectionDialog extends javax.swing.JDialog {
 
 	/**
 	 * This method will be triggered if the user click on the adoptButton. Changes
-	 * on the option for systematic search detection will be adopted.
+	 * on the option for systematic search detection will be adopted. An
+	 * experiment that was analysed before is analysed again with the new options,
+	 * only the detection of systematic searching and what depends on it is
+	 * computed again.
 	 * 
 	 * @param e
 	 *            event
@@ -204,6 +207,8 @@ public class SystematicSearchDetectionDialog extends javax.swing.JDialog {
 			recalys.setTimeToThink(timeToThink);
 			System.out.println("timetothink: " + recalys.getTimeToThink());
 			setVisible(false);
+			if (recalys.analysisComplete())
+				recalys.analyse();
 		}
 	}
 
@@ -1,6 +1,6 @@
 package de.upb.recalys.visualization;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Element;
@@ -21,6 +21,9 @@ public abstract class AbstractRCSGraph extends SingleGraph {
 	/** The start node. */
 	protected Node start;
 
+	/** The nodes of this graph, indexed by the dense indices of the RCS nodes. */
+	private Node[] nodesByIndex = new Node[0];
+
 	/**
 	 * Instantiates a new abstract RCS graph.
 	 *
@@ -84,8 +87,9 @@ public abstract class AbstractRCSGraph extends SingleGraph {
 		this.clear();
 		this.addAttribute("ui.quality");
 		this.addAttribute("ui.antialias");
+		nodesByIndex = new Node[rcsGraph.getNodeCount()];
 		addNodeLinks(rcsGraph.getRoot());
-		this.start = this.getNode(Integer.toString(rcsGraph.getRoot().getID()));
+		this.start = getGraphNode(rcsGraph.getRoot());
 		this.start.addAttribute("ui.class", "start");
 		this.hideLoops();
 	}
@@ -99,29 +103,61 @@ public abstract class AbstractRCSGraph extends SingleGraph {
 	 */
 	private void addNodeLinks(RCSNode node) {
 		RCSNode currentNode = node;
-		ArrayList<RCSNode> childrenList = currentNode.getChildren();
+		List<RCSNode> childrenList = currentNode.getChildren();
 		String currentNodeID = Integer.toString(currentNode.getID());
-		this.addNode(currentNodeID).addAttribute("ui.label", currentNode.getLabel());
+		addGraphNode(currentNode, currentNodeID).addAttribute("ui.label", currentNode.getLabel());
 
 		String childID;
 
 		// add edges to the children of the current node
 		for (RCSNode child : childrenList) {
 			childID = Integer.toString(child.getID());
-			this.addNode(childID);
+			addGraphNode(child, childID);
 			this.addEdge(currentNodeID + "," + childID, currentNodeID, childID, true);
 		}
 
 		// recursive call on all children that are not called yet
 		for (RCSNode child : childrenList) {
-			childID = Integer.toString(child.getID());
-			if (!this.getNode(childID).hasAttribute("ui.label")) {
+			if (!getGraphNode(child).hasAttribute("ui.label")) {
 				addNodeLinks(child);
 			}
 		}
 
 	}
 
+	/**
+	 * Adds the node for a {@link RCSNode} if it is not in the graph yet.
+	 *
+	 * @param rcsNode
+	 *            the RCS node
+	 * @param id
+	 *            the id of the node in this graph
+	 * @return the node in this graph
+	 */
+	private Node addGraphNode(RCSNode rcsNode, String id) {
+		Node node = nodesByIndex[rcsNode.getIndex()];
+		if (node == null) {
+			node = this.addNode(id);
+			nodesByIndex[rcsNode.getIndex()] = node;
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the node that represents a {@link RCSNode} in this graph. The node
+	 * is found by the dense index of the RCS node without any lookup by its id.
+	 *
+	 * @param rcsNode
+	 *            the RCS node
+	 * @return the node or null, if the RCS node is not part of this graph
+	 */
+	protected Node getGraphNode(RCSNode rcsNode) {
+		int index = rcsNode.getIndex();
+		if (index < 0 || index >= nodesByIndex.length)
+			return null;
+		return nodesByIndex[index];
+	}
+
 	/**
 	 * Hide loops in the graph.
 	 */
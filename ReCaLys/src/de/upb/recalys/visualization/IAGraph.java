@@ -43,7 +43,7 @@ public class IAGraph extends AbstractRCSGraph {
 	public void markTaskTargets(ArrayList<RCSTask> tasks) {
 		for (RCSTask task : tasks) {
 			// get the target node for the current task
-			Node target = this.getNode(Integer.toString(task.getTarget().getID()));
+			Node target = getGraphNode(task.getTarget());
 			target.addAttribute("ui.class", "target");
 		}
 	}
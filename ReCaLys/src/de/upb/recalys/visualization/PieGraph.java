@@ -1,6 +1,7 @@
 package de.upb.recalys.visualization;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
@@ -60,7 +61,7 @@ public class PieGraph extends AbstractRCSGraph {
 		this.currentTask = task;
 
 		MarkAllSimplePaths masp = new MarkAllSimplePaths();
-		masp.init(this, this.start, this.getNode(Integer.toString(currentTask.getTarget().getID())));
+		masp.init(this, this.start, getGraphNode(currentTask.getTarget()));
 		masp.compute();
 
 		ArrayList<RCSPath> paths = task.getPaths();
@@ -72,7 +73,7 @@ public class PieGraph extends AbstractRCSGraph {
 			 * increase the nominated count for the end node if the path is not skipped. If
 			 * the path is skipped then increase the skipped count.
 			 */
-			Node endNode = this.getNode(Integer.toString(path.getEndNode().getID()));
+			Node endNode = getGraphNode(path.getEndNode());
 			if (path.isSkipped()) {
 				increaseNodeSkipped(endNode);
 			} else {
@@ -82,31 +83,27 @@ public class PieGraph extends AbstractRCSGraph {
 			// Special case with only one node in the path.
 			if (path.size() == 1) {
 				path.getNode(0);
-				increaseNodeVisits(this.getNode(Integer.toString(path.getNode(0).getID())));
+				increaseNodeVisits(getGraphNode(path.getNode(0)));
 				// System.out.println("only 1 node in path");
 				continue;
 			}
 
-			String sourceID, targetID = Integer.toString(path.getNode(0).getID());
-			Node source, target = this.getNode(targetID);
+			Node source, target = getGraphNode(path.getNode(0));
 			Edge currentEdge = null, lastEdge;
 			increaseNodeVisits(target);
-			ArrayList<RCSNode> nodelist = path.getPath();
+			List<RCSNode> nodelist = path.getPath();
 
 			RCSNode node;
 			for (int i = 1; i < nodelist.size(); i++) {
 				node = nodelist.get(i);
 
-				sourceID = targetID;
-				targetID = Integer.toString(node.getID());
-
 				source = target;
-				target = this.getNode(targetID);
+				target = getGraphNode(node);
 
 				increaseNodeVisits(target);
 				// Loops should not be stored as the last edge because the next
 				// step could be the way back.
-				if (targetID.equals(sourceID)) {
+				if (target == source) {
 					increaseNodeLoop(source);
 					increaseEdgeVisits(source.getEdgeToward(target));
 					continue;
@@ -164,12 +161,12 @@ public class PieGraph extends AbstractRCSGraph {
 	public void addPathInfo(RCSPath rcsPath) {
 		removeLastUserPath();
 
-		ArrayList<RCSNode> path = rcsPath.getPath();
-		ArrayList<Integer> latencies = rcsPath.getLatencies();
+		List<RCSNode> path = rcsPath.getPath();
+		List<Integer> latencies = rcsPath.getLatencies();
 		if (path.size() <= 1) {
 			GraphTools.addUIClass(this.start, USER_PATH);
 		} else {
-			Node currentNode = this.getNode(Integer.toString(path.get(0).getID()));
+			Node currentNode = getGraphNode(path.get(0));
 
 			Node lastNode;
 			Edge currentEdge;
@@ -179,7 +176,7 @@ public class PieGraph extends AbstractRCSGraph {
 
 			for (int i = 1; i < path.size(); i++) {
 				lastNode = currentNode;
-				currentNode = this.getNode(Integer.toString(path.get(i).getID()));
+				currentNode = getGraphNode(path.get(i));
 				GraphTools.addUIClass(currentNode, USER_PATH);
 
 				boolean back;